@@ -0,0 +1,32 @@
+#!/bin/sh
+# Measures time from container start to the first successful GET /items for each given image.
+# Usage: scripts/measure-startup.sh [image...]
+set -eu
+
+PORT=${PORT:-18080}
+ATTEMPTS=${ATTEMPTS:-5}
+
+if [ "$#" -eq 0 ]; then
+  set -- template/layered-architecture-template template/layered-architecture-template:fast-startup
+fi
+
+# date +%N is GNU-only, so milliseconds are read through Perl, available on both Linux and macOS
+now_ms() {
+  perl -MTime::HiRes=time -e 'printf "%d\n", time * 1000'
+}
+
+for image in "$@"; do
+  total=0
+  for attempt in $(seq 1 "$ATTEMPTS"); do
+    start=$(now_ms)
+    container=$(docker run -d -p "$PORT:8080" "$image")
+    until curl -sf -o /dev/null "http://localhost:$PORT/items"; do
+      sleep 0.01
+    done
+    elapsed=$(($(now_ms) - start))
+    docker rm -f "$container" > /dev/null
+    echo "$image attempt $attempt: $elapsed ms"
+    total=$((total + elapsed))
+  done
+  echo "$image average: $((total / ATTEMPTS)) ms to first successful GET /items"
+done
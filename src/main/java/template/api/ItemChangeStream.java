@@ -0,0 +1,93 @@
+package template.api;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import template.api.model.ItemDTO;
+import template.service.ItemChange;
+import template.service.ItemChangeFeed;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+//sends changes of items to clients of GET /items/changes as Server-Sent Events
+@Component
+public class ItemChangeStream {
+
+    public static final String RESYNC_EVENT = "resync";
+
+    private final ItemChangeFeed changeFeed;
+
+    private final Duration heartbeatInterval;
+
+    //each client is served by its own virtual thread, which mostly waits for changes
+    private final ExecutorService senders = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("item-changes-", 0).factory());
+
+    public ItemChangeStream(ItemChangeFeed changeFeed, @Value("${items.changes.heartbeat-interval}") Duration heartbeatInterval) {
+        this.changeFeed = changeFeed;
+        this.heartbeatInterval = heartbeatInterval;
+    }
+
+    public SseEmitter open(String lastEventId) {
+        //new clients get changes from now on, event IDs of other runs are past any sequence, so they lead to resync
+        var afterSequence = lastEventId != null ? changeFeed.sequenceOf(lastEventId).orElse(Long.MAX_VALUE) : changeFeed.lastSequence();
+
+        //emitter never times out, clients that went away are noticed when a change or heartbeat cannot be sent
+        var emitter = new SseEmitter(0L);
+        var sender = senders.submit(() -> send(emitter, afterSequence));
+        emitter.onCompletion(() -> sender.cancel(true));
+        emitter.onError(e -> sender.cancel(true));
+        return emitter;
+    }
+
+    @PreDestroy
+    void stop() {
+        senders.shutdownNow();
+    }
+
+    private void send(SseEmitter emitter, long afterSequence) {
+        var sequence = afterSequence;
+        try {
+            while (true) {
+                var changes = changeFeed.await(sequence, heartbeatInterval);
+                if (changes.resync()) {
+                    //client reloads all items, and then continues from the change that was the latest before reloading
+                    emitter.send(SseEmitter.event()
+                            .id(changeFeed.eventId(changeFeed.lastSequence()))
+                            .name(RESYNC_EVENT)
+                            .data("Changes were missed, all items have to be read again"));
+                    emitter.complete();
+                    return;
+                }
+
+                if (changes.changes().isEmpty()) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                    continue;
+                }
+
+                for (var change : changes.changes()) {
+                    emitter.send(toEvent(change));
+                }
+                sequence = changes.changes().getLast().sequence();
+            }
+        } catch (IOException | IllegalStateException e) {
+            //client went away, container completes the emitter with the error
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private SseEmitter.SseEventBuilder toEvent(ItemChange change) {
+        return SseEmitter.event()
+                .id(changeFeed.eventId(change.sequence()))
+                .name(change.type().name().toLowerCase(Locale.ROOT))
+                .data(new ItemDTO().id(change.itemId()).name(change.name()), APPLICATION_JSON);
+    }
+
+}
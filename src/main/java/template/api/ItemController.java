@@ -1,78 +1,304 @@
 package template.api;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Iterators;
+import io.micrometer.core.annotation.Timed;
 import lombok.AllArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import template.api.model.ItemDTO;
+import template.exception.ItemImportException;
 import template.service.Item;
 import template.service.ItemService;
+import template.service.ItemTransfer;
+import template.service.ItemWriteBehind;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.stream.Collectors;
+
+import static org.springframework.http.HttpHeaders.ACCEPT;
+import static org.springframework.http.HttpHeaders.RETRY_AFTER;
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
+import static org.springframework.http.HttpStatus.PRECONDITION_FAILED;
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
 
 @RestController
 @AllArgsConstructor
 public class ItemController implements ItemsApi {
 
+    public static final String METRIC = "items.controller";
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    public static final String DELETED_COUNT_HEADER = "X-Deleted-Count";
+
+    public static final String TICKET_HEADER = "X-Write-Ticket";
+
+    public static final String IMPORTED_COUNT_HEADER = "X-Imported-Count";
+
+    public static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    public static final MediaType TEXT_CSV = MediaType.parseMediaType(TEXT_CSV_VALUE);
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    public static final int MAX_BATCH_SIZE = 10_000;
+
     private final ItemService service;
 
-    private final ModelMapper mapper;
+    private final ItemDTOMapper mapper;
+
+    private final ItemWriteBehind writeBehind;
+
+    private final ItemTransfer transfer;
+
+    private final ItemChangeStream changeStream;
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "get"}, histogram = true)
+    public ResponseEntity<ItemDTO> getItem(Long id, String ifNoneMatch) {
+        var item = service.get(id);
+        if (item.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        var eTag = eTag(item.get());
+        if (isNotModified(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(NOT_MODIFIED).eTag(eTag).varyBy(ACCEPT).build();
+        }
+
+        return ResponseEntity.ok().eTag(eTag).varyBy(ACCEPT).body(toDTO(item.get()));
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "getAll"}, histogram = true)
+    public ResponseEntity<ItemStream> getItems(Long afterId, Integer limit, String ifNoneMatch) {
+        var pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        //version is read before the items, so returned items are never older than the version they are tagged with
+        var eTag = "W/\"" + service.getVersion() + "\"";
+        if (isNotModified(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(NOT_MODIFIED).eTag(eTag).varyBy(ACCEPT).build();
+        }
+
+        if (afterId == null && limit == null) {
+            //values are written straight from the repository cursor, producing the same body as a list of DTOs
+            //without creating it, the body is written after this method returns, so the getAll timer does not include
+            //it, and streaming is timed by items.service{operation=streamValues} instead
+            return ResponseEntity.ok().eTag(eTag).varyBy(ACCEPT).body(service::forEachValue);
+        }
+
+        var items = service.get(afterId, pageSize);
+        var response = ResponseEntity.ok().eTag(eTag).varyBy(ACCEPT);
+        if (items.size() == pageSize) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(items.getLast().getId()));
+        }
+
+        return response.body(action -> items.forEach(item -> action.accept(item.getId(), item.getName())));
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "search"}, histogram = true)
+    public ResponseEntity<List<ItemDTO>> searchItems(String prefix, String contains, Long afterId, Integer limit) {
+        var pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        if ((prefix == null) == (contains == null) || pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        var items = prefix != null ? service.searchByPrefix(prefix, afterId, pageSize) : service.searchContaining(contains, afterId, pageSize);
+        var response = ResponseEntity.ok().varyBy(ACCEPT);
+        if (items.size() == pageSize) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(items.getLast().getId()));
+        }
+
+        return response.body(items.stream().map(this::toDTO).toList());
+    }
+
+    @Override
+    public ResponseEntity<ItemStream> streamItems() {
+        return exportItems();
+    }
+
+    //items are read only while the converter writes them, which is timed and counted by the transfer
+    @Override
+    public ResponseEntity<ItemStream> exportItems() {
+        return ResponseEntity.ok().body(transfer::exportItems);
+    }
 
+    //stream stays open while the client is connected, so it is not timed, resyncs are counted by the feed
     @Override
-    public ResponseEntity<ItemDTO> getItem(Long id) {
-        return service.get(id).map(this::toDTO).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<SseEmitter> streamChanges(String lastEventId) {
+        return ResponseEntity.ok().body(changeStream.open(lastEventId));
     }
 
     @Override
-    public ResponseEntity<List<ItemDTO>> getItems() {
-        return ResponseEntity.ok(service.get().stream().map(this::toDTO).toList());
+    public ResponseEntity<Void> importItems(ItemUpload itemUpload) {
+        try {
+            var count = transfer.importItems(Iterators.transform(itemUpload, this::toImportedItem));
+            return ResponseEntity.ok().header(IMPORTED_COUNT_HEADER, String.valueOf(count)).build();
+        } catch (ItemImportException e) {
+            return ResponseEntity.badRequest().header(IMPORTED_COUNT_HEADER, String.valueOf(e.getImportedCount())).build();
+        }
     }
 
     @Override
+    @Timed(value = METRIC, extraTags = {"operation", "create"}, histogram = true)
     public ResponseEntity<Void> postItem(ItemDTO itemDTO) {
         if (itemDTO.getId() != null) {
             return ResponseEntity.badRequest().build();
         }
 
+        if (writeBehind.isEnabled()) {
+            return accepted(writeBehind.submitCreate(toDomainObject(itemDTO)));
+        }
+
         service.create(toDomainObject(itemDTO));
         return ResponseEntity.ok().build();
     }
 
 
     @Override
-    public ResponseEntity<Void> putItem(Long itemId, ItemDTO itemDTO) {
+    @Timed(value = METRIC, extraTags = {"operation", "upsert"}, histogram = true)
+    public ResponseEntity<Void> putItem(Long itemId, String ifMatch, ItemDTO itemDTO) {
         if (!hasValidId(itemId, itemDTO)) {
             return ResponseEntity.badRequest().build();
         }
 
+        //conditional writes are never queued, as the precondition has to be checked before the response is sent
+        if (ifMatch != null) {
+            var replaced = replace(itemId, ifMatch, toDomainObject(itemDTO));
+            return replaced ? ResponseEntity.ok().build() : ResponseEntity.status(PRECONDITION_FAILED).build();
+        }
+
+        if (writeBehind.isEnabled()) {
+            return accepted(writeBehind.submitUpsert(itemId, toDomainObject(itemDTO)));
+        }
+
         service.upsert(itemId, toDomainObject(itemDTO));
         return ResponseEntity.ok().build();
     }
 
     @Override
+    @Timed(value = METRIC, extraTags = {"operation", "createAll"}, histogram = true)
+    public ResponseEntity<Void> postItems(List<ItemDTO> itemDTOs) {
+        if (itemDTOs.size() > MAX_BATCH_SIZE || itemDTOs.stream().anyMatch(itemDTO -> itemDTO.getId() != null)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        service.createAll(itemDTOs.stream().map(this::toDomainObject).toList());
+        return ResponseEntity.ok().build();
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "upsertAll"}, histogram = true)
+    public ResponseEntity<Void> putItems(List<ItemDTO> itemDTOs) {
+        if (itemDTOs.size() > MAX_BATCH_SIZE || itemDTOs.stream().anyMatch(itemDTO -> itemDTO.getId() == null)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        service.upsertAll(itemDTOs.stream().map(this::toDomainObject).toList());
+        return ResponseEntity.ok().build();
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "delete"}, histogram = true)
     public ResponseEntity<Void> deleteItem(Long id) {
-        if (service.get(id).isEmpty()) {
+        if (!service.delete(id)) {
             return ResponseEntity.notFound().build();
         }
 
-        service.delete(id);
         return ResponseEntity.ok().build();
     }
 
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "deleteAll"}, histogram = true)
+    public ResponseEntity<Void> deleteItems(List<Long> ids) {
+        if (ids.isEmpty() || ids.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        var count = service.deleteAll(ids);
+        return ResponseEntity.ok().header(DELETED_COUNT_HEADER, String.valueOf(count)).build();
+    }
+
+    private Item toImportedItem(ItemDTO itemDTO) {
+        if (itemDTO.getName() == null) {
+            throw new IllegalArgumentException("Item name is required");
+        }
+        return toDomainObject(itemDTO);
+    }
+
+    private ResponseEntity<Void> accepted(OptionalLong ticket) {
+        if (ticket.isEmpty()) {
+            return ResponseEntity.status(TOO_MANY_REQUESTS).header(RETRY_AFTER, "1").build();
+        }
+
+        return ResponseEntity.accepted().header(TICKET_HEADER, String.valueOf(ticket.getAsLong())).build();
+    }
+
+    //tags of items are strong, so that they can be sent in If-Match, they identify the state of an item in all of its
+    //formats, which are told apart by the Accept header responses vary by
+    private String eTag(Item item) {
+        //name hash tells apart items recreated under the same ID, which start again from the same version
+        return String.format("\"%d-%08x\"", item.getVersion(), Objects.hashCode(item.getName()));
+    }
+
+    private boolean isNotModified(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        return Arrays.stream(ifNoneMatch.split(","))
+                .map(String::trim)
+                .anyMatch(tag -> tag.equals("*") || opaqueTag(tag).equals(opaqueTag(eTag)));
+    }
+
+    private boolean replace(Long itemId, String ifMatch, Item item) {
+        if (ifMatch.trim().equals("*")) {
+            return service.replace(itemId, item, null);
+        }
+
+        //If-Match uses strong comparison, so weak tags never match and the rest is compared with the whole tag of
+        //the current item
+        var tags = Arrays.stream(ifMatch.split(","))
+                .map(String::trim)
+                .filter(tag -> !tag.startsWith("W/"))
+                .collect(Collectors.toSet());
+        if (tags.isEmpty()) {
+            return false;
+        }
+        return service.replaceIf(itemId, item, current -> tags.contains(eTag(current)));
+    }
+
+    //If-None-Match uses weak comparison, so tags match regardless of their W/ prefix
+    private static String opaqueTag(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
     private boolean hasValidId(Long itemId, ItemDTO itemDTO) {
         return itemDTO.getId() == null || Objects.equals(itemId, itemDTO.getId());
     }
 
     @VisibleForTesting
     ItemDTO toDTO(Item item) {
-        return mapper.map(item, ItemDTO.class);
+        return mapper.toDTO(item);
     }
 
     @VisibleForTesting
     Item toDomainObject(ItemDTO itemDTO) {
-        return mapper.map(itemDTO, Item.class);
+        return mapper.toDomainObject(itemDTO);
     }
 
 }
@@ -0,0 +1,145 @@
+package template.api;
+
+import template.api.model.ItemDTO;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+//reads and writes items as RFC 4180 CSV records with id and name columns, one record at a time
+final class ItemCsv {
+
+    static final String HEADER = "id,name";
+
+    private ItemCsv() {
+    }
+
+    static void writeHeader(Writer writer) throws IOException {
+        writer.write(HEADER);
+        writer.write("\r\n");
+    }
+
+    static void write(Writer writer, ItemDTO item) throws IOException {
+        writeRecord(writer, item.getId() != null ? String.valueOf(item.getId()) : "", item.getName());
+    }
+
+    static void write(Writer writer, long id, String name) throws IOException {
+        writeRecord(writer, String.valueOf(id), name);
+    }
+
+    //header is optional, an empty ID column means that the ID is assigned on import
+    static Iterator<ItemDTO> read(Reader reader) {
+        return new Iterator<>() {
+
+            private List<String> next;
+
+            private boolean first = true;
+
+            private boolean read;
+
+            @Override
+            public boolean hasNext() {
+                //read lazily, so that errors of any record are thrown while iterating
+                if (!read) {
+                    next = readRecord(reader, first);
+                    first = false;
+                    read = true;
+                }
+                return next != null;
+            }
+
+            @Override
+            public ItemDTO next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                read = false;
+                return toDTO(next);
+            }
+        };
+    }
+
+    private static ItemDTO toDTO(List<String> record) {
+        if (record.size() != 2) {
+            throw new IllegalArgumentException("Expected 2 columns of " + HEADER + ", but received " + record.size());
+        }
+
+        var id = record.get(0).isBlank() ? null : Long.parseLong(record.get(0).trim());
+        return new ItemDTO().id(id).name(record.get(1));
+    }
+
+    private static List<String> readRecord(Reader reader, boolean first) {
+        try {
+            var record = readRecord(reader);
+            if (first && record != null && String.join(",", record).equals(HEADER)) {
+                return readRecord(reader);
+            }
+            return record;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //returns null at the end of input
+    private static List<String> readRecord(Reader reader) throws IOException {
+        var c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+
+        var fields = new ArrayList<String>(2);
+        var field = new StringBuilder();
+        var quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IllegalArgumentException("Quoted field is not closed");
+                }
+                if (c == '"') {
+                    c = reader.read();
+                    if (c != '"') {
+                        //closing quote, the character following it is handled as unquoted
+                        quoted = false;
+                        continue;
+                    }
+                }
+                field.append((char) c);
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+
+    private static void writeRecord(Writer writer, String id, String name) throws IOException {
+        writer.write(id);
+        writer.write(',');
+        writer.write(quote(name));
+        writer.write("\r\n");
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+}
@@ -0,0 +1,19 @@
+package template.api;
+
+import org.mapstruct.Builder;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import template.api.model.ItemDTO;
+import template.service.Item;
+
+import static org.mapstruct.MappingConstants.ComponentModel.SPRING;
+
+@Mapper(componentModel = SPRING, builder = @Builder(disableBuilder = true))
+public interface ItemDTOMapper {
+
+    ItemDTO toDTO(Item item);
+
+    @Mapping(target = "version", ignore = true)
+    Item toDomainObject(ItemDTO itemDTO);
+
+}
@@ -0,0 +1,11 @@
+package template.api;
+
+import template.service.ItemService;
+
+//items passed to the message converter one at a time while they are read, so that they are never all held in memory
+@FunctionalInterface
+public interface ItemStream {
+
+    void forEach(ItemService.ValueConsumer action);
+
+}
@@ -0,0 +1,106 @@
+package template.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+import static template.api.ItemController.TEXT_CSV;
+
+//writes items of a stream while they are read, as CSV or in the same form as Jackson writes their DTOs
+public class ItemStreamHttpMessageConverter extends AbstractHttpMessageConverter<ItemStream> {
+
+    private final Map<MediaType, ObjectMapper> objectMappers;
+
+    public ItemStreamHttpMessageConverter(Map<MediaType, ObjectMapper> objectMappers) {
+        super(Stream.concat(objectMappers.keySet().stream(), Stream.of(TEXT_CSV)).toArray(MediaType[]::new));
+        this.objectMappers = objectMappers;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ItemStream.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected ItemStream readInternal(Class<? extends ItemStream> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Item streams can only be written", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(ItemStream items, HttpOutputMessage outputMessage) throws IOException {
+        var contentType = outputMessage.getHeaders().getContentType();
+        if (TEXT_CSV.equalsTypeAndSubtype(contentType)) {
+            writeCsv(items, contentType, outputMessage);
+        } else {
+            writeJson(items, contentType, outputMessage);
+        }
+    }
+
+    private void writeCsv(ItemStream items, MediaType contentType, HttpOutputMessage outputMessage) throws IOException {
+        var charset = contentType.getCharset() != null ? contentType.getCharset() : UTF_8;
+        try (var writer = new BufferedWriter(new OutputStreamWriter(outputMessage.getBody(), charset))) {
+            ItemCsv.writeHeader(writer);
+            items.forEach((id, name) -> {
+                try {
+                    ItemCsv.write(writer, id, name);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private void writeJson(ItemStream items, MediaType contentType, HttpOutputMessage outputMessage) throws IOException {
+        //NDJSON holds one object per line, the other formats an array of them
+        var delimited = APPLICATION_NDJSON.equalsTypeAndSubtype(contentType);
+        try (var generator = objectMapper(contentType).createGenerator(outputMessage.getBody())) {
+            if (delimited) {
+                generator.setRootValueSeparator(null);
+            } else {
+                generator.writeStartArray();
+            }
+            items.forEach((id, name) -> {
+                try {
+                    generator.writeStartObject();
+                    generator.writeNumberField("id", id);
+                    generator.writeStringField("name", name);
+                    generator.writeEndObject();
+                    if (delimited) {
+                        generator.writeRaw('\n');
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (!delimited) {
+                generator.writeEndArray();
+            }
+        }
+    }
+
+    private ObjectMapper objectMapper(MediaType contentType) {
+        return objectMappers.entrySet().stream()
+                .filter(entry -> entry.getKey().equalsTypeAndSubtype(contentType))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported content type: " + contentType));
+    }
+
+}
@@ -0,0 +1,10 @@
+package template.api;
+
+import template.api.model.ItemDTO;
+
+import java.util.Iterator;
+
+//items parsed from the request body one at a time while they are imported, so that the body is never held in memory
+public interface ItemUpload extends Iterator<ItemDTO> {
+
+}
@@ -0,0 +1,98 @@
+package template.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import template.api.model.ItemDTO;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+import static template.api.ItemController.TEXT_CSV;
+
+//reads items of an NDJSON or CSV request body lazily, in the same form as Jackson reads their DTOs
+public class ItemUploadHttpMessageConverter extends AbstractHttpMessageConverter<ItemUpload> {
+
+    private final ObjectMapper objectMapper;
+
+    public ItemUploadHttpMessageConverter(ObjectMapper objectMapper) {
+        super(APPLICATION_NDJSON, TEXT_CSV);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ItemUpload.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected ItemUpload readInternal(Class<? extends ItemUpload> clazz, HttpInputMessage inputMessage) {
+        var contentType = inputMessage.getHeaders().getContentType();
+        if (TEXT_CSV.equalsTypeAndSubtype(contentType)) {
+            var charset = contentType.getCharset() != null ? contentType.getCharset() : UTF_8;
+            return new LazyUpload(() -> ItemCsv.read(new BufferedReader(new InputStreamReader(inputMessage.getBody(), charset))));
+        }
+
+        return new LazyUpload(() -> objectMapper.readerFor(ItemDTO.class).readValues(inputMessage.getBody()));
+    }
+
+    @Override
+    protected void writeInternal(ItemUpload items, HttpOutputMessage outputMessage) {
+        throw new HttpMessageNotWritableException("Item uploads can only be read");
+    }
+
+    private interface Parser {
+
+        Iterator<ItemDTO> parse() throws IOException;
+
+    }
+
+    //parser is created with the first item, so that errors of any item, the first one included, are reported while
+    //importing, together with the number of items imported before them
+    private static final class LazyUpload implements ItemUpload {
+
+        private final Parser parser;
+
+        private Iterator<ItemDTO> items;
+
+        private LazyUpload(Parser parser) {
+            this.parser = parser;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return items().hasNext();
+        }
+
+        @Override
+        public ItemDTO next() {
+            return items().next();
+        }
+
+        private Iterator<ItemDTO> items() {
+            if (items == null) {
+                try {
+                    items = parser.parse();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return items;
+        }
+
+    }
+
+}
@@ -0,0 +1,60 @@
+package template.api;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import template.repository.ReplicaRoutingDataSource;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+
+//clients that have just written are served by the primary until replicas are expected to have caught up
+@Component
+@ConditionalOnProperty("items.datasource.replica-urls")
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String RECENT_WRITE_COOKIE = "items-recent-write";
+
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final int windowSeconds;
+
+    public ReadYourWritesFilter(@Value("${items.datasource.read-your-writes-window}") Duration window) {
+        //cookie expiry is given in whole seconds, so the window is rounded up
+        this.windowSeconds = (int) Math.max(1, (window.toMillis() + 999) / 1000);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!SAFE_METHODS.contains(request.getMethod())) {
+            //set before the response is committed, it expires by itself once the window is over
+            var cookie = new Cookie(RECENT_WRITE_COOKIE, "1");
+            cookie.setMaxAge(windowSeconds);
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            response.addCookie(cookie);
+        }
+
+        ReplicaRoutingDataSource.startRequest(hasWrittenRecently(request));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReplicaRoutingDataSource.endRequest();
+        }
+    }
+
+    private static boolean hasWrittenRecently(HttpServletRequest request) {
+        var cookies = request.getCookies();
+        return cookies != null && Arrays.stream(cookies).anyMatch(cookie -> cookie.getName().equals(RECENT_WRITE_COOKIE));
+    }
+
+}
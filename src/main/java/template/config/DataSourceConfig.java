@@ -0,0 +1,83 @@
+package template.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import template.repository.ReplicaRoutingDataSource;
+import template.repository.ShardedItemStore;
+import template.repository.StatementStatistics;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+//data sources beside the auto-configured one, built only when replicas or shards are configured
+@Configuration
+public class DataSourceConfig implements DisposableBean {
+
+    public static final String PRIMARY = "primary";
+
+    public static final String REPLICA = "replica-";
+
+    public static final String SHARD = "shard-";
+
+    //pools are not beans, so they are closed together with this configuration
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    @Bean
+    @ConditionalOnProperty("items.datasource.replica-urls")
+    public DataSource dataSource(DataSourceProperties properties,
+                                 StatementStatistics statistics,
+                                 MeterRegistry registry,
+                                 @Value("${items.datasource.replica-urls}") List<String> replicaUrls,
+                                 @Value("${spring.datasource.hikari.maximum-pool-size}") int maximumPoolSize) {
+        var primary = statistics.instrument(pool(properties, properties.determineUrl(), PRIMARY, maximumPoolSize, registry), PRIMARY);
+        var replicas = new ArrayList<DataSource>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            var pool = pool(properties, replicaUrls.get(i).strip(), REPLICA + i, maximumPoolSize, registry);
+            pool.setReadOnly(true);
+            replicas.add(statistics.instrument(pool, REPLICA + i));
+        }
+
+        //connection is taken only by the first statement, when the transaction is already known to be read-only
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replicas));
+    }
+
+    //the auto-configured data source is left to JPA, items themselves are kept only in the shards
+    @Bean
+    @Profile(ShardedItemStore.PROFILE)
+    public ShardedItemStore shardedItemStore(DataSourceProperties properties,
+                                             StatementStatistics statistics,
+                                             MeterRegistry registry,
+                                             @Value("${items.shards.urls}") List<String> shardUrls,
+                                             @Value("${spring.datasource.hikari.maximum-pool-size}") int maximumPoolSize) {
+        var shards = new ArrayList<DataSource>();
+        for (int i = 0; i < shardUrls.size(); i++) {
+            shards.add(statistics.instrument(pool(properties, shardUrls.get(i).strip(), SHARD + i, maximumPoolSize, registry), SHARD + i));
+        }
+        return new ShardedItemStore(shards);
+    }
+
+    @Override
+    public void destroy() {
+        pools.forEach(HikariDataSource::close);
+    }
+
+    private HikariDataSource pool(DataSourceProperties properties, String url, String name, int maximumPoolSize, MeterRegistry registry) {
+        var pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).url(url).build();
+        pool.setPoolName(name);
+        pool.setMaximumPoolSize(maximumPoolSize);
+        //metrics are registered here, tagged with the pool name
+        pool.setMetricRegistry(registry);
+        pools.add(pool);
+        return pool;
+    }
+
+}
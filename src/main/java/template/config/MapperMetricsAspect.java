@@ -0,0 +1,41 @@
+package template.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//mappers are generated by MapStruct, so they are timed by type rather than with @Timed annotations
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class MapperMetricsAspect {
+
+    public static final String METRIC = "items.mapper";
+
+    private final MeterRegistry registry;
+
+    //timers are looked up once per method, as building and registering one allocates on every call
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    @Around("within(template.api.ItemDTOMapper+) || within(template.service.ItemEntityMapper+)")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        var sample = Timer.start(registry);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            sample.stop(timers.computeIfAbsent(joinPoint.getSignature().getName(), this::timer));
+        }
+    }
+
+    private Timer timer(String operation) {
+        return Timer.builder(METRIC).tag("operation", operation).register(registry);
+    }
+
+}
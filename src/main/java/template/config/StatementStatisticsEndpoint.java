@@ -0,0 +1,29 @@
+package template.config;
+
+import lombok.AllArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+import template.repository.StatementStatistics;
+
+import java.util.List;
+
+@Component
+@Endpoint(id = "sqlstats")
+@AllArgsConstructor
+public class StatementStatisticsEndpoint {
+
+    private final StatementStatistics statistics;
+
+    @ReadOperation
+    public List<StatementStatistics.Summary> statements() {
+        return statistics.summaries();
+    }
+
+    @DeleteOperation
+    public void reset() {
+        statistics.reset();
+    }
+
+}
@@ -0,0 +1,54 @@
+package template.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import template.api.ItemStreamHttpMessageConverter;
+import template.api.ItemUploadHttpMessageConverter;
+
+import java.util.Map;
+
+import static org.springframework.http.MediaType.APPLICATION_CBOR;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+
+//binary formats are built from the same Jackson configuration as JSON, so all of them serialize items alike
+@Configuration
+public class WebConfig {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    //converters declared as beans are placed before the default ones, so Jackson never gets to serialize item streams
+    @Bean
+    public ItemStreamHttpMessageConverter itemStreamHttpMessageConverter(ObjectMapper objectMapper,
+                                                                         MappingJackson2CborHttpMessageConverter cborHttpMessageConverter,
+                                                                         MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter) {
+        return new ItemStreamHttpMessageConverter(Map.of(
+                APPLICATION_JSON, objectMapper,
+                APPLICATION_NDJSON, objectMapper,
+                APPLICATION_CBOR, cborHttpMessageConverter.getObjectMapper(),
+                MediaType.parseMediaType(APPLICATION_SMILE_VALUE), smileHttpMessageConverter.getObjectMapper()));
+    }
+
+    @Bean
+    public ItemUploadHttpMessageConverter itemUploadHttpMessageConverter(ObjectMapper objectMapper) {
+        return new ItemUploadHttpMessageConverter(objectMapper);
+    }
+
+}
@@ -0,0 +1,19 @@
+package template.exception;
+
+import lombok.Getter;
+
+import static java.lang.String.format;
+
+@Getter
+public final class ItemImportException extends RuntimeException {
+
+    public static final String MESSAGE = "Import stopped at an invalid item, %d items imported before it were committed.";
+
+    private final long importedCount;
+
+    public ItemImportException(long importedCount, Throwable cause) {
+        super(format(MESSAGE, importedCount), cause);
+        this.importedCount = importedCount;
+    }
+
+}
@@ -0,0 +1,21 @@
+package template.repository;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+//version of items kept in memory of this instance, every change goes through it, so counting changes is enough
+class ChangeCounter {
+
+    //counter starts from zero on every start, so the start time tells apart versions of different runs
+    private final String instanceId = Long.toHexString(System.currentTimeMillis());
+
+    private final AtomicLong count = new AtomicLong();
+
+    void increment() {
+        count.incrementAndGet();
+    }
+
+    String version() {
+        return instanceId + "-" + count.get();
+    }
+
+}
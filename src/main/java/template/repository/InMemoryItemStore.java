@@ -0,0 +1,619 @@
+package template.repository;
+
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+@Repository
+@Profile(InMemoryItemStore.PROFILE)
+public class InMemoryItemStore implements ItemStore {
+
+    public static final String PROFILE = "in-memory";
+
+    //power of two, so that a stripe is picked by the top bits of a key hash
+    private static final int STRIPES = 16;
+
+    private static final int STRIPE_SHIFT = Long.SIZE - Integer.numberOfTrailingZeros(STRIPES);
+
+    //marks free slots, so it cannot be used as an ID
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    private final ChangeCounter changes = new ChangeCounter();
+
+    public InMemoryItemStore() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "get"}, histogram = true)
+    public Optional<ItemEntity> findById(Long id) {
+        return Optional.ofNullable(stripe(id).get(id));
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "getAll"}, histogram = true)
+    public List<ItemEntity> findAll() {
+        return findPage(null, Integer.MAX_VALUE);
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "getAllById"}, histogram = true)
+    public List<ItemEntity> findAllById(Collection<Long> ids) {
+        return ids.stream().sorted().distinct().map(id -> stripe(id).get(id)).filter(Objects::nonNull).toList();
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "getPage"}, histogram = true)
+    public List<ItemEntity> findPage(Long afterId, int limit) {
+        var lowerBound = afterId != null ? afterId : EMPTY;
+        var items = new ArrayList<ItemEntity>();
+        for (var stripe : stripes) {
+            stripe.collectPage(lowerBound, limit, items);
+        }
+        items.sort(Comparator.comparingLong(ItemEntity::getId));
+        return items.size() > limit ? new ArrayList<>(items.subList(0, limit)) : items;
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "stream"}, histogram = true)
+    public void forEach(Consumer<ItemEntity> action) {
+        //every stripe is sorted once and the stripes are merged, rather than scanning and sorting all of them per page
+        var snapshots = new PriorityQueue<Snapshot>(STRIPES, Comparator.comparingLong(Snapshot::currentId));
+        for (var stripe : stripes) {
+            var snapshot = stripe.snapshot();
+            if (snapshot.hasNext()) {
+                snapshots.add(snapshot);
+            }
+        }
+
+        while (!snapshots.isEmpty()) {
+            var snapshot = snapshots.poll();
+            action.accept(snapshot.next());
+            if (snapshot.hasNext()) {
+                snapshots.add(snapshot);
+            }
+        }
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "create"}, histogram = true)
+    public void create(ItemEntity item) {
+        insert(item);
+        changes.increment();
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "upsert"}, histogram = true)
+    public void upsert(Long id, ItemEntity item) {
+        put(id, item);
+        changes.increment();
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "replace"}, histogram = true)
+    public boolean replace(Long id, ItemEntity item, Long expectedVersion) {
+        var replaced = stripe(id).replace(id, item.getName(), expectedVersion, null);
+        if (replaced) {
+            changes.increment();
+        }
+        return replaced;
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "replace"}, histogram = true)
+    public boolean replace(Long id, ItemEntity item, ItemEntity expected) {
+        var replaced = stripe(id).replace(id, item.getName(), null, expected);
+        if (replaced) {
+            changes.increment();
+        }
+        return replaced;
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "createAll"}, histogram = true)
+    public void createAll(List<ItemEntity> items) {
+        items.forEach(this::insert);
+        changes.increment();
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "upsertAll"}, histogram = true)
+    public void upsertAll(List<ItemEntity> items) {
+        items.forEach(item -> put(item.getId(), item));
+        changes.increment();
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "delete"}, histogram = true)
+    public boolean deleteById(Long id) {
+        var deleted = stripe(id).remove(id);
+        if (deleted) {
+            changes.increment();
+        }
+        return deleted;
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "deleteAll"}, histogram = true)
+    public int deleteAllById(Collection<Long> ids) {
+        var count = 0;
+        for (var id : ids) {
+            if (stripe(id).remove(id)) {
+                count++;
+            }
+        }
+        if (count > 0) {
+            changes.increment();
+        }
+        return count;
+    }
+
+    @Override
+    public String getVersion() {
+        return changes.version();
+    }
+
+    //writes are visible as soon as they are applied
+    @Override
+    public boolean joinsTransaction() {
+        return false;
+    }
+
+    private void insert(ItemEntity item) {
+        var id = allocateId();
+        stripe(id).put(id, item.getName());
+        item.setId(id);
+        item.setVersion(0L);
+    }
+
+    private void put(long id, ItemEntity item) {
+        reserve(id);
+        stripe(id).put(id, item.getName());
+    }
+
+    long nextId() {
+        return nextId.get();
+    }
+
+    long allocateId() {
+        return nextId.getAndIncrement();
+    }
+
+    void reserve(long id) {
+        if (id == EMPTY) {
+            throw new IllegalArgumentException("Item ID must be greater than " + EMPTY);
+        }
+
+        //moved past explicit IDs, so they are never handed out to new items
+        nextId.accumulateAndGet(id + 1, Math::max);
+    }
+
+    //returns -1 for absent items
+    long versionOf(long id) {
+        return stripe(id).version(id);
+    }
+
+    void restore(long id, String name, long version) {
+        reserve(id);
+        stripe(id).set(id, name, version);
+    }
+
+    boolean remove(long id) {
+        return stripe(id).remove(id);
+    }
+
+    long count() {
+        long count = 0;
+        for (var stripe : stripes) {
+            count += stripe.size();
+        }
+        return count;
+    }
+
+    void forEachEntry(EntryConsumer consumer) {
+        for (var stripe : stripes) {
+            stripe.forEachEntry(consumer);
+        }
+    }
+
+    interface EntryConsumer {
+
+        void accept(long id, String name, long version);
+
+    }
+
+    private Stripe stripe(long id) {
+        return stripes[(int) (mix(id) >>> STRIPE_SHIFT)];
+    }
+
+    private static long mix(long id) {
+        return id * 0x9E3779B97F4A7C15L;
+    }
+
+    private static int slotHash(long id) {
+        var hash = mix(id);
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    //open addressing table with linear probing, keys and values are kept in primitive arrays
+    private static final class Table {
+
+        private final long[] keys;
+
+        private final String[] names;
+
+        private final long[] versions;
+
+        private final int mask;
+
+        private Table(int capacity) {
+            keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            names = new String[capacity];
+            versions = new long[capacity];
+            mask = capacity - 1;
+        }
+
+        //returns slot of the key, or -(free slot) - 1 when the key is absent
+        private int indexOf(long id) {
+            var slot = slotHash(id) & mask;
+            //bounded, so that a torn optimistic read cannot loop forever
+            for (int probes = 0; probes <= mask; probes++) {
+                if (keys[slot] == id) {
+                    return slot;
+                }
+                if (keys[slot] == EMPTY) {
+                    return -slot - 1;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        private ItemEntity entityAt(int slot) {
+            return ItemEntity.builder().id(keys[slot]).name(names[slot]).version(versions[slot]).build();
+        }
+
+    }
+
+    //items of a stripe sorted by ID, read one after another while stripes are merged
+    private static final class Snapshot {
+
+        private final long[] ids;
+
+        private final String[] names;
+
+        private final long[] versions;
+
+        private int position;
+
+        private Snapshot(long[] ids, String[] names, long[] versions) {
+            this.ids = ids;
+            this.names = names;
+            this.versions = versions;
+        }
+
+        private boolean hasNext() {
+            return position < names.length;
+        }
+
+        private long currentId() {
+            return ids[position];
+        }
+
+        private ItemEntity next() {
+            var item = ItemEntity.builder().id(ids[position]).name(names[position]).version(versions[position]).build();
+            position++;
+            return item;
+        }
+
+    }
+
+    private static final class Stripe {
+
+        private static final int INITIAL_CAPACITY = 64;
+
+        private final StampedLock lock = new StampedLock();
+
+        private Table table = new Table(INITIAL_CAPACITY);
+
+        private int size;
+
+        private ItemEntity get(long id) {
+            var stamp = lock.tryOptimisticRead();
+            var item = read(id);
+            if (lock.validate(stamp)) {
+                return item;
+            }
+
+            //a write was running at the same time, so the read is repeated under the lock
+            stamp = lock.readLock();
+            try {
+                return read(id);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private ItemEntity read(long id) {
+            var current = table;
+            var slot = current.indexOf(id);
+            return slot >= 0 ? current.entityAt(slot) : null;
+        }
+
+        private int size() {
+            var stamp = lock.readLock();
+            try {
+                return size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private long version(long id) {
+            var stamp = lock.tryOptimisticRead();
+            var version = readVersion(id);
+            if (lock.validate(stamp)) {
+                return version;
+            }
+
+            stamp = lock.readLock();
+            try {
+                return readVersion(id);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private long readVersion(long id) {
+            var current = table;
+            var slot = current.indexOf(id);
+            return slot >= 0 ? current.versions[slot] : -1;
+        }
+
+        private void forEachEntry(EntryConsumer consumer) {
+            var stamp = lock.readLock();
+            try {
+                var current = table;
+                for (int slot = 0; slot < current.keys.length; slot++) {
+                    if (current.keys[slot] != EMPTY) {
+                        consumer.accept(current.keys[slot], current.names[slot], current.versions[slot]);
+                    }
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private void collectPage(long lowerBound, int limit, List<ItemEntity> items) {
+            var stamp = lock.readLock();
+            try {
+                var current = table;
+                for (var id : smallestKeys(current.keys, lowerBound, Math.min(limit, size))) {
+                    items.add(current.entityAt(current.indexOf(id)));
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private Snapshot snapshot() {
+            var stamp = lock.readLock();
+            try {
+                var current = table;
+                var ids = new long[size];
+                var count = 0;
+                for (var key : current.keys) {
+                    if (key != EMPTY) {
+                        ids[count++] = key;
+                    }
+                }
+                Arrays.sort(ids, 0, count);
+
+                var names = new String[count];
+                var versions = new long[count];
+                for (int i = 0; i < count; i++) {
+                    var slot = current.indexOf(ids[i]);
+                    names[i] = current.names[slot];
+                    versions[i] = current.versions[slot];
+                }
+                return new Snapshot(ids, names, versions);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        //keys are kept in a max-heap bounded by the limit, so a page costs O(n log limit) instead of sorting the stripe
+        private static long[] smallestKeys(long[] keys, long lowerBound, int limit) {
+            var heap = new long[limit];
+            var count = 0;
+            for (var key : keys) {
+                if (key == EMPTY || key <= lowerBound) {
+                    continue;
+                }
+
+                if (count < limit) {
+                    heap[count] = key;
+                    siftUp(heap, count++);
+                } else if (limit > 0 && key < heap[0]) {
+                    heap[0] = key;
+                    siftDown(heap, count);
+                }
+            }
+            var smallest = Arrays.copyOf(heap, count);
+            Arrays.sort(smallest);
+            return smallest;
+        }
+
+        private static void siftUp(long[] heap, int index) {
+            var key = heap[index];
+            while (index > 0) {
+                var parent = (index - 1) >>> 1;
+                if (heap[parent] >= key) {
+                    break;
+                }
+                heap[index] = heap[parent];
+                index = parent;
+            }
+            heap[index] = key;
+        }
+
+        private static void siftDown(long[] heap, int count) {
+            var key = heap[0];
+            var index = 0;
+            while (2 * index + 1 < count) {
+                var child = 2 * index + 1;
+                if (child + 1 < count && heap[child + 1] > heap[child]) {
+                    child++;
+                }
+                if (heap[child] <= key) {
+                    break;
+                }
+                heap[index] = heap[child];
+                index = child;
+            }
+            heap[index] = key;
+        }
+
+        //writes are numbered under the write lock, so a later write of the same item always gets a greater number
+        private void put(long id, String name) {
+            var stamp = lock.writeLock();
+            try {
+                WriteSequence.take(id);
+                var slot = table.indexOf(id);
+                if (slot >= 0) {
+                    table.names[slot] = name;
+                    table.versions[slot]++;
+                    return;
+                }
+
+                insert(slot, id, name, 0);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private boolean replace(long id, String name, Long expectedVersion, ItemEntity expected) {
+            var stamp = lock.writeLock();
+            try {
+                var slot = table.indexOf(id);
+                if (slot < 0 || (expectedVersion != null && table.versions[slot] != expectedVersion)) {
+                    return false;
+                }
+                if (expected != null && (table.versions[slot] != expected.getVersion() || !Objects.equals(table.names[slot], expected.getName()))) {
+                    return false;
+                }
+
+                WriteSequence.take(id);
+                table.names[slot] = name;
+                table.versions[slot]++;
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private void set(long id, String name, long version) {
+            var stamp = lock.writeLock();
+            try {
+                var slot = table.indexOf(id);
+                if (slot >= 0) {
+                    table.names[slot] = name;
+                    table.versions[slot] = version;
+                    return;
+                }
+
+                insert(slot, id, name, version);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private void insert(int slot, long id, String name, long version) {
+            if (size + 1 > table.keys.length * 3 / 4) {
+                table = resize(table);
+                slot = table.indexOf(id);
+            }
+            slot = -slot - 1;
+            table.keys[slot] = id;
+            table.names[slot] = name;
+            table.versions[slot] = version;
+            size++;
+        }
+
+        private boolean remove(long id) {
+            var stamp = lock.writeLock();
+            try {
+                var slot = table.indexOf(id);
+                if (slot < 0) {
+                    return false;
+                }
+
+                WriteSequence.take(id);
+                shiftBack(table, slot);
+                size--;
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        //moves following entries of the probe sequence into the freed slot, so lookups need no tombstones
+        private static void shiftBack(Table table, int free) {
+            var next = free;
+            while (true) {
+                next = (next + 1) & table.mask;
+                if (table.keys[next] == EMPTY) {
+                    break;
+                }
+
+                var home = slotHash(table.keys[next]) & table.mask;
+                var reachable = free <= next ? home > free && home <= next : home > free || home <= next;
+                if (reachable) {
+                    continue;
+                }
+
+                table.keys[free] = table.keys[next];
+                table.names[free] = table.names[next];
+                table.versions[free] = table.versions[next];
+                free = next;
+            }
+            table.keys[free] = EMPTY;
+            table.names[free] = null;
+            table.versions[free] = 0;
+        }
+
+        private static Table resize(Table table) {
+            var resized = new Table(table.keys.length * 2);
+            for (int i = 0; i < table.keys.length; i++) {
+                if (table.keys[i] != EMPTY) {
+                    var slot = -resized.indexOf(table.keys[i]) - 1;
+                    resized.keys[slot] = table.keys[i];
+                    resized.names[slot] = table.names[i];
+                    resized.versions[slot] = table.versions[i];
+                }
+            }
+            return resized;
+        }
+
+    }
+
+}
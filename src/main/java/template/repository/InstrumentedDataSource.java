@@ -0,0 +1,210 @@
+package template.repository;
+
+import io.micrometer.core.instrument.Counter;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+//times statements of every connection and passes them to statistics, pool metrics still unwrap the target data source
+class InstrumentedDataSource extends DelegatingDataSource {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate", "executeLargeUpdate");
+
+    private static final Set<String> BATCH_METHODS = Set.of("executeBatch", "executeLargeBatch");
+
+    private final StatementStatistics statistics;
+
+    private final Counter statements;
+
+    InstrumentedDataSource(DataSource target, StatementStatistics statistics, Counter statements) {
+        super(target);
+        this.statistics = statistics;
+        this.statements = statements;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return instrument(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return instrument(super.getConnection(username, password));
+    }
+
+    private Connection instrument(Connection connection) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            var result = invoke(connection, method, args);
+            if (result instanceof PreparedStatement statement && method.getName().startsWith("prepare")) {
+                var type = statement instanceof CallableStatement ? CallableStatement.class : PreparedStatement.class;
+                return proxy(type, new PreparedStatementHandler(statement, (String) args[0], connection));
+            }
+            if (result instanceof Statement statement && method.getName().equals("createStatement")) {
+                return proxy(Statement.class, new StatementHandler(statement, connection));
+            }
+            return result;
+        });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private void record(String sql, long nanos, long rows, Map<Integer, Object> parameters, Connection connection) {
+        statements.increment();
+        statistics.record(sql, nanos, rows, parameters, connection);
+    }
+
+    private static long rows(Object result, Statement statement) throws SQLException {
+        if (result instanceof Number count) {
+            return Math.max(count.longValue(), 0);
+        }
+        if (result instanceof int[] counts) {
+            var rows = 0L;
+            for (var count : counts) {
+                rows += Math.max(count, 0);
+            }
+            return rows;
+        }
+        if (result instanceof long[] counts) {
+            var rows = 0L;
+            for (var count : counts) {
+                rows += Math.max(count, 0);
+            }
+            return rows;
+        }
+        //execute returns whether there is a result set, update count is then read from the statement
+        if (Boolean.FALSE.equals(result)) {
+            return Math.max(statement.getUpdateCount(), 0);
+        }
+        return 0;
+    }
+
+    //rows affected by one statement of a batch, counts are missing when the driver does not report them
+    private static long rows(Object result, int index) {
+        if (result instanceof int[] counts && index < counts.length) {
+            return Math.max(counts[index], 0);
+        }
+        if (result instanceof long[] counts && index < counts.length) {
+            return Math.max(counts[index], 0);
+        }
+        return 0;
+    }
+
+    private final class PreparedStatementHandler implements InvocationHandler {
+
+        private final PreparedStatement statement;
+
+        private final String sql;
+
+        private final Connection connection;
+
+        //parameters are kept ordered by index, so that slow statements can be logged and explained with them
+        private final Map<Integer, Object> parameters = new TreeMap<>();
+
+        private PreparedStatementHandler(PreparedStatement statement, String sql, Connection connection) {
+            this.statement = statement;
+            this.sql = sql;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            var name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                parameters.put(index, name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            }
+
+            var executes = BATCH_METHODS.contains(name) || (EXECUTE_METHODS.contains(name) && (args == null || args.length == 0));
+            if (!executes) {
+                return InstrumentedDataSource.invoke(statement, method, args);
+            }
+
+            var start = System.nanoTime();
+            var result = InstrumentedDataSource.invoke(statement, method, args);
+            record(sql, System.nanoTime() - start, rows(result, statement), parameters, connection);
+            return result;
+        }
+
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Statement statement;
+
+        private final Connection connection;
+
+        //statements added with addBatch, recorded one by one when the batch is executed
+        private final List<String> batch = new ArrayList<>();
+
+        private StatementHandler(Statement statement, Connection connection) {
+            this.statement = statement;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            var name = method.getName();
+            if (name.equals("addBatch") && args != null && args[0] instanceof String sql) {
+                var result = InstrumentedDataSource.invoke(statement, method, args);
+                batch.add(sql);
+                return result;
+            }
+            if (name.equals("clearBatch")) {
+                batch.clear();
+            }
+            if (BATCH_METHODS.contains(name)) {
+                return executeBatch(method, args);
+            }
+            if (!EXECUTE_METHODS.contains(name) || args == null || !(args[0] instanceof String sql)) {
+                return InstrumentedDataSource.invoke(statement, method, args);
+            }
+
+            var start = System.nanoTime();
+            var result = InstrumentedDataSource.invoke(statement, method, args);
+            record(sql, System.nanoTime() - start, rows(result, statement), Map.of(), connection);
+            return result;
+        }
+
+        //driver does not time statements of a batch separately, so each of them is recorded with an equal share of its time
+        private Object executeBatch(Method method, Object[] args) throws Throwable {
+            var statements = List.copyOf(batch);
+            batch.clear();
+
+            var start = System.nanoTime();
+            var result = InstrumentedDataSource.invoke(statement, method, args);
+            var nanos = (System.nanoTime() - start) / Math.max(statements.size(), 1);
+            for (int i = 0; i < statements.size(); i++) {
+                record(statements.get(i), nanos, rows(result, i), Map.of(), connection);
+            }
+            return result;
+        }
+
+    }
+
+}
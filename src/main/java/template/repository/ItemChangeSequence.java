@@ -0,0 +1,68 @@
+package template.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+import static template.repository.Queries.CURRENT_CHANGE_QUERY;
+import static template.repository.Queries.NEXT_CHANGE_QUERY;
+
+//version of items shared by all instances writing to the database, ITEM_CHANGE_SEQ is advanced once a write has
+//committed, so a version read before the write became visible is never current after it, while reading the version
+//does not depend on the number of items
+@Slf4j
+@Component
+class ItemChangeSequence {
+
+    private final DataSource dataSource;
+
+    private final JdbcTemplate jdbc;
+
+    ItemChangeSequence(DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.jdbc = new JdbcTemplate(dataSource);
+    }
+
+    //counted once for every transaction, however many writes it makes
+    void countChange() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            advance();
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResource(ItemChangeSequence.this);
+                if (status == STATUS_COMMITTED) {
+                    advance();
+                }
+            }
+        });
+    }
+
+    String version() {
+        return Long.toHexString(jdbc.queryForObject(CURRENT_CHANGE_QUERY, Long.class));
+    }
+
+    //runs on a connection of its own, as the one of the completed transaction may already be released
+    private void advance() {
+        try (var connection = dataSource.getConnection();
+             var statement = connection.createStatement();
+             var result = statement.executeQuery(NEXT_CHANGE_QUERY)) {
+            result.next();
+        } catch (SQLException e) {
+            log.warn("Could not advance version of items, it changes again with the next write", e);
+        }
+    }
+
+}
@@ -1,11 +1,9 @@
 package template.repository;
 
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -19,11 +17,13 @@ import lombok.NoArgsConstructor;
 @Table(name = "ITEM")
 public class ItemEntity {
 
+    //assigned by ItemIdAllocator from ITEM_SEQ
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ITEM_GEN")
-    @SequenceGenerator(name = "ITEM_GEN", sequenceName = "ITEM_SEQ", allocationSize = 1)
     private Long id;
 
     private String name;
 
+    @Version
+    private Long version;
+
 }
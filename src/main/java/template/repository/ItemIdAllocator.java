@@ -0,0 +1,113 @@
+package template.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static template.repository.Queries.ALTER_SEQUENCE_QUERY;
+import static template.repository.Queries.CURRENT_SEQ_VAL_QUERY;
+import static template.repository.Queries.NEXT_SEQ_VAL_QUERY;
+
+//blocks taken from ITEM_SEQ never overlap, so instances sharing a database can all create items, but an explicit ID is
+//reserved by reading the sequence and then restarting it, which another instance taking a block in between can still overlap
+@Component
+public class ItemIdAllocator {
+
+    //must match INCREMENT BY of ITEM_SEQ
+    public static final int BLOCK_SIZE = 50;
+
+    @PersistenceContext
+    private final EntityManager entityManager;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Timer lockWait;
+
+    private final Counter blockAllocations;
+
+    private final Counter reservations;
+
+    private final Counter sequenceRestarts;
+
+    //IDs below the current block have all been handed out, so explicit IDs in that range need no coordination
+    private volatile long blockStart = Long.MIN_VALUE;
+
+    private long next;
+
+    private long limit;
+
+    //lower bound of the next value of ITEM_SEQ, values taken by other instances sharing the database move it further
+    private long sequenceNext = Long.MIN_VALUE;
+
+    public ItemIdAllocator(EntityManager entityManager, MeterRegistry registry) {
+        this.entityManager = entityManager;
+        //time spent waiting for the lock is recorded apart from the time of the queries run while holding it
+        this.lockWait = Timer.builder("items.repository.id.lock.wait").publishPercentileHistogram().register(registry);
+        this.blockAllocations = registry.counter("items.repository.id.blocks");
+        this.reservations = registry.counter("items.repository.id.reservations");
+        this.sequenceRestarts = registry.counter("items.repository.id.sequence.restarts");
+    }
+
+    public long nextId() {
+        acquireLock();
+        try {
+            if (next >= limit) {
+                allocateBlock();
+            }
+            return next++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void reserve(long id) {
+        if (id < blockStart) {
+            return;
+        }
+
+        reservations.increment();
+        acquireLock();
+        try {
+            if (id >= next && id < limit) {
+                next = id + 1;
+            }
+            if (id >= sequenceNext) {
+                //read again right before the restart, so the sequence is not moved back below values taken since it was last read
+                sequenceNext = currentSequenceValue();
+            }
+            if (id >= sequenceNext) {
+                entityManager.createNativeQuery(String.format(ALTER_SEQUENCE_QUERY, id + 1)).executeUpdate();
+                sequenceNext = id + 1;
+                sequenceRestarts.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void acquireLock() {
+        var start = System.nanoTime();
+        lock.lock();
+        lockWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void allocateBlock() {
+        var value = ((Number) entityManager.createNativeQuery(NEXT_SEQ_VAL_QUERY).getSingleResult()).longValue();
+        next = value;
+        limit = value + BLOCK_SIZE;
+        sequenceNext = limit;
+        blockStart = value;
+        blockAllocations.increment();
+    }
+
+    private long currentSequenceValue() {
+        return ((Number) entityManager.createNativeQuery(CURRENT_SEQ_VAL_QUERY).getSingleResult()).longValue();
+    }
+
+}
@@ -1,9 +1,38 @@
 package template.repository;
 
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
 @Repository
 public interface ItemJpaRepository extends JpaRepository<ItemEntity, Long> {
 
+    List<ItemEntity> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    List<ItemEntity> findByIdInOrderByIdAsc(Collection<Long> ids);
+
+    //unindexed substring search, kept as the baseline the name index is benchmarked against
+    @Query("SELECT i FROM ItemEntity i WHERE LOWER(i.name) LIKE LOWER(CONCAT('%', :text, '%')) AND i.id > :afterId ORDER BY i.id")
+    List<ItemEntity> findByNameContaining(@Param("text") String text, @Param("afterId") Long afterId, Limit limit);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    Stream<ItemEntity> streamAllByOrderByIdAsc();
+
+    //unlike deleteById, bulk deletes do not load entities first and report the number of deleted rows
+    @Modifying
+    @Query("DELETE FROM ItemEntity i WHERE i.id = :id")
+    int deleteItem(@Param("id") Long id);
+
 }
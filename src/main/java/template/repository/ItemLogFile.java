@@ -0,0 +1,185 @@
+package template.repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.zip.CRC32C;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+//append-only file of item records, written and read through memory-mapped regions of fixed size
+final class ItemLogFile implements Closeable {
+
+    private static final int MAGIC = 0x4954454D;
+
+    //magic, region size, generation and next ID
+    static final int HEADER_SIZE = 4 + 4 + 8 + 8;
+
+    //record length and checksum
+    private static final int RECORD_HEADER_SIZE = 4 + 4;
+
+    //operation, ID, version and name length
+    private static final int RECORD_FIXED_SIZE = 1 + 8 + 8 + 4;
+
+    //tells readers that the rest of the region is unused, as records never span two regions
+    private static final int SKIP = -1;
+
+    private static final byte PUT = 1;
+
+    private static final byte DELETE = 2;
+
+    private final FileChannel channel;
+
+    private final int regionSize;
+
+    private final CRC32C checksum = new CRC32C();
+
+    private MappedByteBuffer region;
+
+    private long regionStart;
+
+    private ItemLogFile(FileChannel channel, int regionSize) throws IOException {
+        this.channel = channel;
+        this.regionSize = regionSize;
+        this.region = channel.map(READ_WRITE, 0, regionSize);
+    }
+
+    static ItemLogFile create(Path path, int regionSize, long generation, long nextId) throws IOException {
+        var file = new ItemLogFile(FileChannel.open(path, CREATE_NEW, READ, WRITE), regionSize);
+        file.region.putInt(MAGIC).putInt(regionSize).putLong(generation).putLong(nextId);
+        return file;
+    }
+
+    static Header replay(Path path, Handler handler) throws IOException {
+        try (var channel = FileChannel.open(path, READ)) {
+            var size = channel.size();
+            var headerBuffer = channel.map(READ_ONLY, 0, HEADER_SIZE);
+            if (headerBuffer.getInt() != MAGIC) {
+                throw new IOException("Not an item log file: " + path);
+            }
+            var regionSize = headerBuffer.getInt();
+            var header = new Header(headerBuffer.getLong(), headerBuffer.getLong());
+
+            var checksum = new CRC32C();
+            for (long offset = 0; offset < size; offset += regionSize) {
+                //records are read directly from the mapped file, without copying it into heap buffers
+                var region = channel.map(READ_ONLY, offset, Math.min(regionSize, size - offset));
+                region.position(offset == 0 ? HEADER_SIZE : 0);
+                if (!replayRegion(region, checksum, handler)) {
+                    break;
+                }
+            }
+            return header;
+        }
+    }
+
+    void appendPut(long id, long version, String name) {
+        append(PUT, id, version, name);
+    }
+
+    void appendDelete(long id) {
+        append(DELETE, id, 0, null);
+    }
+
+    void force() {
+        region.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private void append(byte operation, long id, long version, String name) {
+        var nameBytes = name != null ? name.getBytes(UTF_8) : null;
+        var length = RECORD_FIXED_SIZE + (nameBytes != null ? nameBytes.length : 0);
+        ensureCapacity(RECORD_HEADER_SIZE + length);
+
+        var start = region.position();
+        region.position(start + RECORD_HEADER_SIZE);
+        region.put(operation).putLong(id).putLong(version).putInt(nameBytes != null ? nameBytes.length : -1);
+        if (nameBytes != null) {
+            region.put(nameBytes);
+        }
+
+        checksum.reset();
+        checksum.update(region.slice(start + RECORD_HEADER_SIZE, length));
+        region.putInt(start + 4, (int) checksum.getValue());
+        //length is written last, so that recovery never sees a record before it is complete
+        region.putInt(start, length);
+    }
+
+    private void ensureCapacity(int recordSize) {
+        if (region.remaining() >= recordSize) {
+            return;
+        }
+        if (recordSize > regionSize) {
+            throw new IllegalArgumentException("Record of " + recordSize + " bytes does not fit in log region of " + regionSize + " bytes");
+        }
+
+        if (region.remaining() >= 4) {
+            region.putInt(region.position(), SKIP);
+        }
+        region.force();
+        regionStart += regionSize;
+        try {
+            region = channel.map(READ_WRITE, regionStart, regionSize);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not map next region of item log", e);
+        }
+    }
+
+    //returns false when the end of the log, or its torn tail, was reached
+    private static boolean replayRegion(ByteBuffer region, CRC32C checksum, Handler handler) {
+        while (region.remaining() >= RECORD_HEADER_SIZE) {
+            var start = region.position();
+            var length = region.getInt(start);
+            if (length == SKIP) {
+                return true;
+            }
+            if (length < RECORD_FIXED_SIZE || length > region.remaining() - RECORD_HEADER_SIZE) {
+                return false;
+            }
+
+            var record = region.slice(start + RECORD_HEADER_SIZE, length);
+            checksum.reset();
+            checksum.update(record.duplicate());
+            if ((int) checksum.getValue() != region.getInt(start + 4)) {
+                return false;
+            }
+
+            var operation = record.get();
+            var id = record.getLong();
+            var version = record.getLong();
+            var nameLength = record.getInt();
+            if (operation == PUT) {
+                handler.put(id, version, nameLength >= 0 ? UTF_8.decode(record.limit(record.position() + nameLength)).toString() : null);
+            } else {
+                handler.delete(id);
+            }
+            region.position(start + RECORD_HEADER_SIZE + length);
+        }
+        return true;
+    }
+
+    record Header(long generation, long nextId) {
+    }
+
+    interface Handler {
+
+        void put(long id, long version, String name);
+
+        void delete(long id);
+
+    }
+
+}
@@ -1,66 +1,227 @@
 package template.repository;
 
+import io.micrometer.core.annotation.Timed;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import lombok.AllArgsConstructor;
+import org.hibernate.Session;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
-import static template.repository.Queries.ALTER_SEQUENCE_QUERY;
-import static template.repository.Queries.CURRENT_SEQ_VAL_QUERY;
-import static template.repository.Queries.LOCK_QUERY;
+import static template.repository.Queries.COMPARE_AND_SET_QUERY;
+import static template.repository.Queries.COMPARE_NAME_AND_SET_QUERY;
+import static template.repository.Queries.DELETE_RETURNING_IDS_QUERY;
 import static template.repository.Queries.MERGE_QUERY;
+import static template.repository.Queries.UPDATE_QUERY;
 
 @Repository
+@Profile("!" + InMemoryItemStore.PROFILE + " & !" + LogItemStore.PROFILE + " & !" + ShardedItemStore.PROFILE)
 @AllArgsConstructor
-public class ItemRepository {
+public class ItemRepository implements ItemStore {
+
+    //matches hibernate.jdbc.batch_size
+    public static final int BATCH_SIZE = 50;
 
     @PersistenceContext
     private final EntityManager entityManager;
 
     private final ItemJpaRepository jpaRepository;
 
+    private final ItemIdAllocator idAllocator;
+
+    private final ItemChangeSequence changes;
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "get"}, histogram = true)
     public Optional<ItemEntity> findById(Long id) {
         return jpaRepository.findById(id);
     }
 
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "getAll"}, histogram = true)
     public List<ItemEntity> findAll() {
         return jpaRepository.findAll();
     }
 
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "getAllById"}, histogram = true)
+    public List<ItemEntity> findAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        return jpaRepository.findByIdInOrderByIdAsc(ids);
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "getPage"}, histogram = true)
+    public List<ItemEntity> findPage(Long afterId, int limit) {
+        var lowerBound = afterId != null ? afterId : Long.MIN_VALUE;
+        return jpaRepository.findByIdGreaterThanOrderByIdAsc(lowerBound, Limit.of(limit));
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "stream"}, histogram = true)
+    @Transactional(readOnly = true)
+    public void forEach(Consumer<ItemEntity> action) {
+        try (var entities = jpaRepository.streamAllByOrderByIdAsc()) {
+            entities.forEach(entity -> {
+                action.accept(entity);
+                //detached entities can be garbage collected while the rest of the result set is still being read
+                entityManager.detach(entity);
+            });
+        }
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "create"}, histogram = true)
     @Transactional
     public void create(ItemEntity item) {
-        acquireH2Lock();
-        jpaRepository.save(item);
+        item.setId(idAllocator.nextId());
+        entityManager.persist(item);
+        WriteSequence.take(item.getId());
+        changes.countChange();
     }
 
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "upsert"}, histogram = true)
     @Transactional
     public void upsert(Long id, ItemEntity item) {
-        acquireH2Lock();
+        //reserved before merge, so the ID can no longer be handed out to a new item
+        idAllocator.reserve(id);
         entityManager.createNativeQuery(MERGE_QUERY).setParameter(1, id).setParameter(2, item.getName()).executeUpdate();
-        syncSequence(id);
+        //numbered while the merged row is locked, so that a later write of the item waits for it and gets a greater number
+        WriteSequence.take(id);
+        changes.countChange();
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "replace"}, histogram = true)
+    @Transactional
+    public boolean replace(Long id, ItemEntity item, Long expectedVersion) {
+        //version is checked by the update itself, so only writers of the same item ever wait for each other
+        var query = expectedVersion != null
+                ? entityManager.createNativeQuery(COMPARE_AND_SET_QUERY).setParameter(3, expectedVersion)
+                : entityManager.createNativeQuery(UPDATE_QUERY);
+        var replaced = query.setParameter(1, item.getName()).setParameter(2, id).executeUpdate() > 0;
+        if (replaced) {
+            WriteSequence.take(id);
+            changes.countChange();
+        }
+        return replaced;
     }
 
-    private void acquireH2Lock() {
-        //solution for development and testing on H2, but it may need adjustments for production databases
-        entityManager.createNativeQuery(LOCK_QUERY).getResultList();
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "replace"}, histogram = true)
+    @Transactional
+    public boolean replace(Long id, ItemEntity item, ItemEntity expected) {
+        var replaced = entityManager.createNativeQuery(COMPARE_NAME_AND_SET_QUERY)
+                .setParameter(1, item.getName())
+                .setParameter(2, id)
+                .setParameter(3, expected.getVersion())
+                .setParameter(4, expected.getName())
+                .executeUpdate() > 0;
+        if (replaced) {
+            WriteSequence.take(id);
+            changes.countChange();
+        }
+        return replaced;
     }
 
-    private void syncSequence(Long insertedId) {
-        var currentSeqVal = (Number) entityManager.createNativeQuery(CURRENT_SEQ_VAL_QUERY).getSingleResult();
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "createAll"}, histogram = true)
+    @Transactional
+    public void createAll(List<ItemEntity> items) {
+        for (int i = 0; i < items.size(); i++) {
+            var item = items.get(i);
+            item.setId(idAllocator.nextId());
+            entityManager.persist(item);
+            WriteSequence.take(item.getId());
+            if ((i + 1) % BATCH_SIZE == 0) {
+                //flushing in batch-sized chunks keeps inserts batched and the persistence context small
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        changes.countChange();
+    }
 
-        if (insertedId < currentSeqVal.longValue()) {
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "upsertAll"}, histogram = true)
+    @Transactional
+    public void upsertAll(List<ItemEntity> items) {
+        if (items.isEmpty()) {
             return;
         }
 
-        entityManager.createNativeQuery(String.format(ALTER_SEQUENCE_QUERY, insertedId + 1)).executeUpdate();
+        idAllocator.reserve(items.stream().mapToLong(ItemEntity::getId).max().getAsLong());
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (var statement = connection.prepareStatement(MERGE_QUERY)) {
+                for (int i = 0; i < items.size(); i++) {
+                    statement.setLong(1, items.get(i).getId());
+                    statement.setString(2, items.get(i).getName());
+                    statement.addBatch();
+                    if ((i + 1) % BATCH_SIZE == 0 || i == items.size() - 1) {
+                        statement.executeBatch();
+                    }
+                }
+            }
+        });
+        items.forEach(item -> WriteSequence.take(item.getId()));
+        changes.countChange();
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "delete"}, histogram = true)
+    @Transactional
+    public boolean deleteById(Long id) {
+        var deleted = jpaRepository.deleteItem(id) > 0;
+        if (deleted) {
+            WriteSequence.take(id);
+            changes.countChange();
+        }
+        return deleted;
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "deleteAll"}, histogram = true)
+    @Transactional
+    public int deleteAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        //deleted IDs are returned by the delete itself, so exactly the deleted items are numbered
+        var deleted = new ArrayList<Long>();
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (var statement = connection.prepareStatement(DELETE_RETURNING_IDS_QUERY)) {
+                statement.setObject(1, ids.toArray(Long[]::new));
+                try (var result = statement.executeQuery()) {
+                    while (result.next()) {
+                        deleted.add(result.getLong(1));
+                    }
+                }
+            }
+        });
+        deleted.forEach(WriteSequence::take);
+        if (!deleted.isEmpty()) {
+            changes.countChange();
+        }
+        return deleted.size();
     }
 
-    public void deleteById(Long id) {
-        jpaRepository.deleteById(id);
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "version"}, histogram = true)
+    public String getVersion() {
+        return changes.version();
     }
 
 }
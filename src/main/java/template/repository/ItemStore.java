@@ -0,0 +1,50 @@
+package template.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+public interface ItemStore {
+
+    String METRIC = "items.repository";
+
+    Optional<ItemEntity> findById(Long id);
+
+    List<ItemEntity> findAll();
+
+    //returns existing items with given IDs ordered by ID
+    List<ItemEntity> findAllById(Collection<Long> ids);
+
+    List<ItemEntity> findPage(Long afterId, int limit);
+
+    void forEach(Consumer<ItemEntity> action);
+
+    void create(ItemEntity item);
+
+    void upsert(Long id, ItemEntity item);
+
+    //replaces an existing item only while it has the expected version, any version matches when it is null
+    boolean replace(Long id, ItemEntity item, Long expectedVersion);
+
+    //replaces an existing item only while it still has both the version and the name of the expected one, so that
+    //whatever was checked against the expected item holds for the replaced one
+    boolean replace(Long id, ItemEntity item, ItemEntity expected);
+
+    void createAll(List<ItemEntity> items);
+
+    void upsertAll(List<ItemEntity> items);
+
+    boolean deleteById(Long id);
+
+    int deleteAllById(Collection<Long> ids);
+
+    String getVersion();
+
+    //stores writing outside of the transaction of their caller keep every write they applied, even when that
+    //transaction is rolled back
+    default boolean joinsTransaction() {
+        return true;
+    }
+
+}
@@ -0,0 +1,388 @@
+package template.repository;
+
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.regex.Pattern;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+
+@Slf4j
+@Repository
+@Profile(LogItemStore.PROFILE)
+public class LogItemStore implements ItemStore {
+
+    public static final String PROFILE = "log-store";
+
+    private static final String LOG_SUFFIX = ".log";
+
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+
+    private static final Pattern FILE_NAME = Pattern.compile("items-(\\d+)(\\.log|\\.snapshot)");
+
+    private final Path directory;
+
+    private final int regionSize;
+
+    private final long snapshotThreshold;
+
+    private final boolean syncWrites;
+
+    //items are served from memory, the log only makes their changes durable
+    private final InMemoryItemStore state = new InMemoryItemStore();
+
+    //serializes writes, so that records of an item are logged in the order they are applied
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private final ExecutorService snapshotExecutor = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("item-snapshot").factory());
+
+    private final ChangeCounter changes = new ChangeCounter();
+
+    private ItemLogFile logFile;
+
+    private long generation;
+
+    private long recordsSinceSnapshot;
+
+    public LogItemStore(@Value("${items.log.directory}") Path directory,
+                        @Value("${items.log.region-size}") int regionSize,
+                        @Value("${items.log.snapshot-threshold}") long snapshotThreshold,
+                        @Value("${items.log.sync-writes}") boolean syncWrites) {
+        this.directory = directory;
+        this.regionSize = regionSize;
+        this.snapshotThreshold = snapshotThreshold;
+        this.syncWrites = syncWrites;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        recover();
+        //every run appends to a new log, so a torn tail left by a crash is never written over
+        generation++;
+        logFile = ItemLogFile.create(logPath(generation), regionSize, generation, 0);
+    }
+
+    @PreDestroy
+    public void close() throws IOException, InterruptedException {
+        snapshotExecutor.shutdown();
+        snapshotExecutor.awaitTermination(1, TimeUnit.MINUTES);
+        writeLock.lock();
+        try {
+            logFile.close();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "get"}, histogram = true)
+    public Optional<ItemEntity> findById(Long id) {
+        return state.findById(id);
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "getAll"}, histogram = true)
+    public List<ItemEntity> findAll() {
+        return state.findAll();
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "getAllById"}, histogram = true)
+    public List<ItemEntity> findAllById(Collection<Long> ids) {
+        return state.findAllById(ids);
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "getPage"}, histogram = true)
+    public List<ItemEntity> findPage(Long afterId, int limit) {
+        return state.findPage(afterId, limit);
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "stream"}, histogram = true)
+    public void forEach(Consumer<ItemEntity> action) {
+        state.forEach(action);
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "create"}, histogram = true)
+    public void create(ItemEntity item) {
+        write(() -> append(item));
+        changes.increment();
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "upsert"}, histogram = true)
+    public void upsert(Long id, ItemEntity item) {
+        write(() -> append(id, item));
+        changes.increment();
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "replace"}, histogram = true)
+    public boolean replace(Long id, ItemEntity item, Long expectedVersion) {
+        var replaced = write(() -> appendReplace(id, item, expectedVersion) ? 1 : 0) > 0;
+        if (replaced) {
+            changes.increment();
+        }
+        return replaced;
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "replace"}, histogram = true)
+    public boolean replace(Long id, ItemEntity item, ItemEntity expected) {
+        //the current name is read under the write lock, so it cannot change before the item is replaced
+        var replaced = write(() -> state.findById(id).filter(current -> Objects.equals(current.getName(), expected.getName())).isPresent()
+                && appendReplace(id, item, expected.getVersion()) ? 1 : 0) > 0;
+        if (replaced) {
+            changes.increment();
+        }
+        return replaced;
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "createAll"}, histogram = true)
+    public void createAll(List<ItemEntity> items) {
+        write(() -> items.forEach(this::append));
+        changes.increment();
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "upsertAll"}, histogram = true)
+    public void upsertAll(List<ItemEntity> items) {
+        write(() -> items.forEach(item -> append(item.getId(), item)));
+        changes.increment();
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "delete"}, histogram = true)
+    public boolean deleteById(Long id) {
+        var deleted = write(() -> appendDelete(id) ? 1 : 0) > 0;
+        if (deleted) {
+            changes.increment();
+        }
+        return deleted;
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "deleteAll"}, histogram = true)
+    public int deleteAllById(Collection<Long> ids) {
+        var count = write(() -> (int) ids.stream().filter(this::appendDelete).count());
+        if (count > 0) {
+            changes.increment();
+        }
+        return count;
+    }
+
+    @Override
+    public String getVersion() {
+        return changes.version();
+    }
+
+    //writes are appended to the log as soon as they are applied
+    @Override
+    public boolean joinsTransaction() {
+        return false;
+    }
+
+    private void write(Runnable action) {
+        write(() -> {
+            action.run();
+            return 0;
+        });
+    }
+
+    private int write(IntSupplier action) {
+        writeLock.lock();
+        try {
+            var count = action.getAsInt();
+            if (syncWrites) {
+                logFile.force();
+            }
+            if (recordsSinceSnapshot >= snapshotThreshold) {
+                startSnapshot();
+            }
+            return count;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    //records are logged before they are applied, so a change is never visible before it is durable
+    private void append(ItemEntity item) {
+        var id = state.allocateId();
+        logFile.appendPut(id, 0, item.getName());
+        state.restore(id, item.getName(), 0);
+        WriteSequence.take(id);
+        item.setId(id);
+        item.setVersion(0L);
+        recordsSinceSnapshot++;
+    }
+
+    private void append(long id, ItemEntity item) {
+        state.reserve(id);
+        var version = state.versionOf(id) + 1;
+        logFile.appendPut(id, version, item.getName());
+        state.restore(id, item.getName(), version);
+        WriteSequence.take(id);
+        recordsSinceSnapshot++;
+    }
+
+    //version is checked under the write lock, so no other write can change it before the record is appended
+    private boolean appendReplace(long id, ItemEntity item, Long expectedVersion) {
+        var version = state.versionOf(id);
+        if (version < 0 || (expectedVersion != null && version != expectedVersion)) {
+            return false;
+        }
+
+        append(id, item);
+        return true;
+    }
+
+    private boolean appendDelete(long id) {
+        if (state.versionOf(id) < 0) {
+            return false;
+        }
+
+        //numbered by the state while it removes the item, still under the write lock
+        logFile.appendDelete(id);
+        state.remove(id);
+        recordsSinceSnapshot++;
+        return true;
+    }
+
+    private void startSnapshot() {
+        try {
+            logFile.close();
+            generation++;
+            logFile = ItemLogFile.create(logPath(generation), regionSize, generation, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        recordsSinceSnapshot = 0;
+
+        var snapshotGeneration = generation;
+        snapshotExecutor.execute(() -> writeSnapshot(snapshotGeneration));
+    }
+
+    //snapshot is taken while writes go on, it is made consistent by replaying the log of its generation over it
+    private void writeSnapshot(long snapshotGeneration) {
+        var temporary = directory.resolve(fileName(snapshotGeneration, SNAPSHOT_SUFFIX) + ".tmp");
+        try {
+            Files.deleteIfExists(temporary);
+            try (var snapshot = ItemLogFile.create(temporary, regionSize, snapshotGeneration, state.nextId())) {
+                state.forEachEntry((id, name, version) -> snapshot.appendPut(id, version, name));
+            }
+            Files.move(temporary, snapshotPath(snapshotGeneration), ATOMIC_MOVE);
+            deleteFilesBefore(snapshotGeneration);
+        } catch (IOException e) {
+            log.error("Snapshot of generation {} failed", snapshotGeneration, e);
+        }
+    }
+
+    private void recover() throws IOException {
+        var start = System.nanoTime();
+        deleteUnfinishedSnapshots();
+        var snapshotGeneration = latestGeneration(SNAPSHOT_SUFFIX);
+        var handler = new ItemLogFile.Handler() {
+            @Override
+            public void put(long id, long version, String name) {
+                state.restore(id, name, version);
+            }
+
+            @Override
+            public void delete(long id) {
+                state.reserve(id);
+                state.remove(id);
+            }
+        };
+
+        if (snapshotGeneration >= 0) {
+            var header = ItemLogFile.replay(snapshotPath(snapshotGeneration), handler);
+            state.reserve(header.nextId() - 1);
+            generation = snapshotGeneration;
+        }
+
+        try (var files = Files.list(directory)) {
+            var logGenerations = files.filter(file -> file.getFileName().toString().endsWith(LOG_SUFFIX))
+                    .map(this::generationOf)
+                    .filter(logGeneration -> logGeneration >= 0 && logGeneration >= snapshotGeneration)
+                    .sorted()
+                    .toList();
+            for (var logGeneration : logGenerations) {
+                ItemLogFile.replay(logPath(logGeneration), handler);
+                generation = Math.max(generation, logGeneration);
+            }
+        }
+
+        var millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("Recovered {} items from {} in {} ms", state.count(), directory, millis);
+    }
+
+    private long latestGeneration(String suffix) throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(suffix))
+                    .mapToLong(this::generationOf)
+                    .max()
+                    .orElse(-1);
+        }
+    }
+
+    private void deleteUnfinishedSnapshots() throws IOException {
+        try (var files = Files.list(directory)) {
+            for (var file : files.filter(path -> path.getFileName().toString().endsWith(SNAPSHOT_SUFFIX + ".tmp")).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private void deleteFilesBefore(long snapshotGeneration) throws IOException {
+        try (var files = Files.list(directory)) {
+            for (var file : files.toList()) {
+                var fileGeneration = generationOf(file);
+                if (fileGeneration >= 0 && fileGeneration < snapshotGeneration) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    //returns -1 for files of other kinds, including unfinished snapshots
+    private long generationOf(Path file) {
+        var matcher = FILE_NAME.matcher(file.getFileName().toString());
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+
+    private Path logPath(long logGeneration) {
+        return directory.resolve(fileName(logGeneration, LOG_SUFFIX));
+    }
+
+    private Path snapshotPath(long snapshotGeneration) {
+        return directory.resolve(fileName(snapshotGeneration, SNAPSHOT_SUFFIX));
+    }
+
+    private static String fileName(long fileGeneration, String suffix) {
+        return String.format("items-%019d%s", fileGeneration, suffix);
+    }
+
+}
@@ -2,12 +2,47 @@ package template.repository;
 
 public class Queries {
 
-    public static final String MERGE_QUERY = "MERGE INTO item (id, name) KEY(id) VALUES (?, ?)";
+    public static final String MERGE_QUERY = """
+            MERGE INTO item t USING (SELECT CAST(? AS BIGINT) AS id, CAST(? AS VARCHAR) AS name) s ON t.id = s.id
+            WHEN MATCHED THEN UPDATE SET name = s.name, version = t.version + 1
+            WHEN NOT MATCHED THEN INSERT (id, name, version) VALUES (s.id, s.name, 0)""";
 
-    public static final String LOCK_QUERY = "SELECT 1 FROM ITEM_SEQ_LOCK FOR UPDATE";
+    public static final String UPDATE_QUERY = "UPDATE item SET name = ?, version = version + 1 WHERE id = ?";
+
+    public static final String COMPARE_AND_SET_QUERY = UPDATE_QUERY + " AND version = ?";
+
+    public static final String COMPARE_NAME_AND_SET_QUERY = COMPARE_AND_SET_QUERY + " AND name IS NOT DISTINCT FROM ?";
+
+    public static final String NEXT_SEQ_VAL_QUERY = "SELECT NEXT VALUE FOR ITEM_SEQ";
 
     public static final String ALTER_SEQUENCE_QUERY = "ALTER SEQUENCE ITEM_SEQ RESTART WITH %d";
 
     public static final String CURRENT_SEQ_VAL_QUERY = "SELECT CAST(BASE_VALUE AS BIGINT) FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'ITEM_SEQ'";
 
+    public static final String CREATE_TABLE_QUERY = "CREATE TABLE IF NOT EXISTS item (id BIGINT PRIMARY KEY, name VARCHAR(255), version BIGINT)";
+
+    public static final String CREATE_SEQUENCE_QUERY = "CREATE SEQUENCE IF NOT EXISTS ITEM_SEQ START WITH %d INCREMENT BY %d";
+
+    public static final String SELECT_QUERY = "SELECT id, name, version FROM item WHERE id = ?";
+
+    public static final String SELECT_ALL_QUERY = "SELECT id, name, version FROM item ORDER BY id";
+
+    public static final String SELECT_ALL_BY_ID_QUERY = "SELECT id, name, version FROM item WHERE id = ANY(?) ORDER BY id";
+
+    public static final String SELECT_PAGE_QUERY = "SELECT id, name, version FROM item WHERE id > ? ORDER BY id LIMIT ?";
+
+    public static final String INSERT_QUERY = "INSERT INTO item (id, name, version) VALUES (?, ?, 0)";
+
+    public static final String DELETE_QUERY = "DELETE FROM item WHERE id = ?";
+
+    public static final String CREATE_CHANGE_SEQUENCE_QUERY = "CREATE SEQUENCE IF NOT EXISTS ITEM_CHANGE_SEQ";
+
+    public static final String NEXT_CHANGE_QUERY = "SELECT NEXT VALUE FOR ITEM_CHANGE_SEQ";
+
+    public static final String CURRENT_CHANGE_QUERY = "SELECT CAST(BASE_VALUE AS BIGINT) FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'ITEM_CHANGE_SEQ'";
+
+    public static final String DELETE_ALL_BY_ID_QUERY = "DELETE FROM item WHERE id = ANY(?)";
+
+    public static final String DELETE_RETURNING_IDS_QUERY = "SELECT id FROM OLD TABLE (" + DELETE_ALL_BY_ID_QUERY + ")";
+
 }
@@ -0,0 +1,90 @@
+package template.repository;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//read-only transactions are spread over replicas, everything else goes to the primary
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final String PRIMARY = "primary";
+
+    //set only for requests, reads outside of them take turns on the replicas one transaction at a time
+    private static final ThreadLocal<Route> ROUTE = new ThreadLocal<>();
+
+    private final String[] replicas;
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas) {
+        this.replicas = new String[replicas.size()];
+        var targets = new HashMap<Object, Object>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            this.replicas[i] = "replica-" + i;
+            targets.put(this.replicas[i], replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    //reads of a request pinned to the primary see the writes of its client before replicas catch up, reads of other
+    //requests all go to the same replica, so that the data they return is consistent with each other
+    public static void startRequest(boolean pinnedToPrimary) {
+        ROUTE.set(new Route(pinnedToPrimary));
+    }
+
+    public static void endRequest() {
+        ROUTE.remove();
+    }
+
+    public static boolean isPinnedToPrimary() {
+        var route = ROUTE.get();
+        return route != null && route.pinnedToPrimary;
+    }
+
+    //read-only transactions of the current request are served by a replica, which may lag behind the primary
+    public static boolean readsFromReplica() {
+        var route = ROUTE.get();
+        return route != null && !route.pinnedToPrimary;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicas.length == 0 || !TransactionSynchronizationManager.isCurrentTransactionReadOnly() || isPinnedToPrimary()) {
+            return PRIMARY;
+        }
+
+        var route = ROUTE.get();
+        if (route == null) {
+            return nextReplica();
+        }
+        if (route.replica == null) {
+            route.replica = nextReplica();
+        }
+        return route.replica;
+    }
+
+    private String nextReplica() {
+        return replicas[Math.floorMod(nextReplica.getAndIncrement(), replicas.length)];
+    }
+
+    private static final class Route {
+
+        private final boolean pinnedToPrimary;
+
+        //chosen by the first read of the request
+        private String replica;
+
+        private Route(boolean pinnedToPrimary) {
+            this.pinnedToPrimary = pinnedToPrimary;
+        }
+
+    }
+
+}
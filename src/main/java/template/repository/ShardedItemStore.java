@@ -0,0 +1,442 @@
+package template.repository;
+
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PreDestroy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static template.repository.ItemIdAllocator.BLOCK_SIZE;
+import static template.repository.Queries.ALTER_SEQUENCE_QUERY;
+import static template.repository.Queries.COMPARE_AND_SET_QUERY;
+import static template.repository.Queries.COMPARE_NAME_AND_SET_QUERY;
+import static template.repository.Queries.CREATE_CHANGE_SEQUENCE_QUERY;
+import static template.repository.Queries.CREATE_SEQUENCE_QUERY;
+import static template.repository.Queries.CREATE_TABLE_QUERY;
+import static template.repository.Queries.CURRENT_CHANGE_QUERY;
+import static template.repository.Queries.CURRENT_SEQ_VAL_QUERY;
+import static template.repository.Queries.DELETE_QUERY;
+import static template.repository.Queries.DELETE_RETURNING_IDS_QUERY;
+import static template.repository.Queries.INSERT_QUERY;
+import static template.repository.Queries.MERGE_QUERY;
+import static template.repository.Queries.NEXT_CHANGE_QUERY;
+import static template.repository.Queries.NEXT_SEQ_VAL_QUERY;
+import static template.repository.Queries.SELECT_ALL_BY_ID_QUERY;
+import static template.repository.Queries.SELECT_ALL_QUERY;
+import static template.repository.Queries.SELECT_PAGE_QUERY;
+import static template.repository.Queries.SELECT_QUERY;
+import static template.repository.Queries.UPDATE_QUERY;
+
+//items are partitioned over several databases by ID, every database keeps its own ITEM table and ITEM_SEQ
+public class ShardedItemStore implements ItemStore {
+
+    public static final String PROFILE = "sharded";
+
+    private static final int STREAM_PAGE_SIZE = 1000;
+
+    private static final RowMapper<ItemEntity> ROW_MAPPER = (resultSet, rowNum) -> ItemEntity.builder()
+            .id(resultSet.getLong(1))
+            .name(resultSet.getString(2))
+            .version(resultSet.getLong(3))
+            .build();
+
+    private final Shard[] shards;
+
+    //shards are queried in parallel, every task only waits for a connection of its own shard
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("item-shard-", 0).factory());
+
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    public ShardedItemStore(List<DataSource> dataSources) {
+        if (dataSources.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard must be configured");
+        }
+
+        shards = new Shard[dataSources.size()];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(dataSources.get(i), i, shards.length);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.close();
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "get"}, histogram = true)
+    public Optional<ItemEntity> findById(Long id) {
+        return shard(id).jdbc.query(SELECT_QUERY, ROW_MAPPER, id).stream().findFirst();
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "getAll"}, histogram = true)
+    public List<ItemEntity> findAll() {
+        return merge(scatter(shard -> shard.jdbc.query(SELECT_ALL_QUERY, ROW_MAPPER)), Integer.MAX_VALUE);
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "getAllById"}, histogram = true)
+    public List<ItemEntity> findAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        return merge(scatter(shard -> {
+            var own = shard.own(ids);
+            return own.length == 0 ? List.of() : shard.jdbc.query(SELECT_ALL_BY_ID_QUERY, ROW_MAPPER, (Object) own);
+        }), Integer.MAX_VALUE);
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "getPage"}, histogram = true)
+    public List<ItemEntity> findPage(Long afterId, int limit) {
+        //every shard returns a full page, as any of them may hold all items of the merged one
+        var lowerBound = afterId != null ? afterId : Long.MIN_VALUE;
+        return merge(scatter(shard -> shard.jdbc.query(SELECT_PAGE_QUERY, ROW_MAPPER, lowerBound, limit)), limit);
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "stream"}, histogram = true)
+    public void forEach(Consumer<ItemEntity> action) {
+        Long afterId = null;
+        List<ItemEntity> page;
+        do {
+            page = findPage(afterId, STREAM_PAGE_SIZE);
+            page.forEach(action);
+            afterId = page.isEmpty() ? afterId : page.getLast().getId();
+        } while (page.size() == STREAM_PAGE_SIZE);
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "create"}, histogram = true)
+    public void create(ItemEntity item) {
+        //new items take turns on shards, the ID handed out by a shard then routes every later request to it
+        var shard = shards[Math.floorMod(nextShard.getAndIncrement(), shards.length)];
+        var id = shard.nextId();
+        shard.write(WriteSequence.numbers(), () -> {
+            shard.jdbc.update(INSERT_QUERY, id, item.getName());
+            return List.of(id);
+        });
+        item.setId(id);
+        item.setVersion(0L);
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "upsert"}, histogram = true)
+    public void upsert(Long id, ItemEntity item) {
+        var shard = shard(id);
+        shard.reserve(id);
+        shard.write(WriteSequence.numbers(), () -> {
+            shard.jdbc.update(MERGE_QUERY, id, item.getName());
+            return List.of(id);
+        });
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "replace"}, histogram = true)
+    public boolean replace(Long id, ItemEntity item, Long expectedVersion) {
+        var shard = shard(id);
+        return !shard.write(WriteSequence.numbers(), () -> {
+            var count = expectedVersion != null
+                    ? shard.jdbc.update(COMPARE_AND_SET_QUERY, item.getName(), id, expectedVersion)
+                    : shard.jdbc.update(UPDATE_QUERY, item.getName(), id);
+            return count > 0 ? List.of(id) : List.of();
+        }).isEmpty();
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "replace"}, histogram = true)
+    public boolean replace(Long id, ItemEntity item, ItemEntity expected) {
+        var shard = shard(id);
+        return !shard.write(WriteSequence.numbers(), () -> {
+            var count = shard.jdbc.update(COMPARE_NAME_AND_SET_QUERY, item.getName(), id, expected.getVersion(), expected.getName());
+            return count > 0 ? List.of(id) : List.of();
+        }).isEmpty();
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "createAll"}, histogram = true)
+    public void createAll(List<ItemEntity> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+
+        //items are dealt to shards like single creates, every shard then inserts its part in a batch of its own
+        var first = nextShard.getAndAdd(items.size());
+        var numbers = WriteSequence.numbers();
+        scatter(shard -> {
+            var rows = new ArrayList<Object[]>();
+            var ids = new ArrayList<Long>();
+            for (int i = 0; i < items.size(); i++) {
+                if (Math.floorMod(first + i, shards.length) == shard.index) {
+                    var item = items.get(i);
+                    item.setId(shard.nextId());
+                    item.setVersion(0L);
+                    rows.add(new Object[]{item.getId(), item.getName()});
+                    ids.add(item.getId());
+                }
+            }
+            if (rows.isEmpty()) {
+                return 0;
+            }
+
+            return shard.write(numbers, () -> {
+                shard.jdbc.batchUpdate(INSERT_QUERY, rows);
+                return ids;
+            }).size();
+        });
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "upsertAll"}, histogram = true)
+    public void upsertAll(List<ItemEntity> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+
+        var numbers = WriteSequence.numbers();
+        scatter(shard -> {
+            var rows = new ArrayList<Object[]>();
+            var ids = new ArrayList<Long>();
+            var maxId = Long.MIN_VALUE;
+            for (var item : items) {
+                if (shard(item.getId()) == shard) {
+                    rows.add(new Object[]{item.getId(), item.getName()});
+                    ids.add(item.getId());
+                    maxId = Math.max(maxId, item.getId());
+                }
+            }
+            if (rows.isEmpty()) {
+                return 0;
+            }
+
+            shard.reserve(maxId);
+            return shard.write(numbers, () -> {
+                shard.jdbc.batchUpdate(MERGE_QUERY, rows);
+                return ids;
+            }).size();
+        });
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "delete"}, histogram = true)
+    public boolean deleteById(Long id) {
+        var shard = shard(id);
+        return !shard.write(WriteSequence.numbers(), () -> shard.jdbc.update(DELETE_QUERY, id) > 0 ? List.of(id) : List.of()).isEmpty();
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "deleteAll"}, histogram = true)
+    public int deleteAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        //deleted IDs are returned by the delete itself, so exactly the deleted items are numbered
+        var numbers = WriteSequence.numbers();
+        return scatter(shard -> {
+            var own = shard.own(ids);
+            return own.length == 0 ? 0 : shard.write(numbers, () -> shard.jdbc.queryForList(DELETE_RETURNING_IDS_QUERY, Long.class, (Object) own)).size();
+        }).stream().mapToInt(Integer::intValue).sum();
+    }
+
+    @Override
+    @Timed(value = METRIC, extraTags = {"operation", "version"}, histogram = true)
+    public String getVersion() {
+        //change sequences of shards only ever grow, so their sum changes with a write to any of them
+        var changes = scatter(shard -> shard.jdbc.queryForObject(CURRENT_CHANGE_QUERY, Long.class)).stream()
+                .mapToLong(Long::longValue)
+                .sum();
+        return Long.toHexString(changes);
+    }
+
+    //every write commits in a transaction of its own shard
+    @Override
+    public boolean joinsTransaction() {
+        return false;
+    }
+
+    //IDs handed out by a shard are congruent to its index modulo the number of shards, so every ID tells its shard
+    private Shard shard(long id) {
+        return shards[Math.floorMod(id, shards.length)];
+    }
+
+    private <T> List<T> scatter(Function<Shard, T> task) {
+        if (shards.length == 1) {
+            return List.of(task.apply(shards[0]));
+        }
+
+        var futures = new ArrayList<Future<T>>(shards.length);
+        for (var shard : shards) {
+            futures.add(executor.submit(() -> task.apply(shard)));
+        }
+        var results = new ArrayList<T>(shards.length);
+        for (var future : futures) {
+            results.add(join(future));
+        }
+        return results;
+    }
+
+    private static <T> T join(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for shard", e);
+        } catch (ExecutionException e) {
+            //callers get the same exception as the one a single shard would have thrown
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    //every shard returns its items ordered by ID, so they are merged instead of sorted again
+    private static List<ItemEntity> merge(List<List<ItemEntity>> sorted, int limit) {
+        var positions = new int[sorted.size()];
+        var heads = new PriorityQueue<Integer>((a, b) -> Long.compare(
+                sorted.get(a).get(positions[a]).getId(),
+                sorted.get(b).get(positions[b]).getId()));
+        for (int i = 0; i < sorted.size(); i++) {
+            if (!sorted.get(i).isEmpty()) {
+                heads.add(i);
+            }
+        }
+
+        var merged = new ArrayList<ItemEntity>();
+        while (!heads.isEmpty() && merged.size() < limit) {
+            var shard = heads.poll();
+            merged.add(sorted.get(shard).get(positions[shard]++));
+            if (positions[shard] < sorted.get(shard).size()) {
+                heads.add(shard);
+            }
+        }
+        return merged;
+    }
+
+    private final class Shard {
+
+        private final JdbcTemplate jdbc;
+
+        private final TransactionTemplate transactions;
+
+        private final int index;
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        //IDs of this shard below the current block have all been handed out, so explicit IDs in that range need no coordination
+        private volatile long blockStart = Long.MIN_VALUE;
+
+        private long next;
+
+        private long limit;
+
+        //lower bound of the next value of the sequence, values taken by other instances sharing the shard move it further
+        private long sequenceNext = Long.MIN_VALUE;
+
+        private Shard(DataSource dataSource, int index, int count) {
+            this.jdbc = new JdbcTemplate(dataSource);
+            this.transactions = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+            this.transactions.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            this.index = index;
+            //a value taken from the sequence starts a block of IDs spaced by the number of shards
+            jdbc.execute(CREATE_TABLE_QUERY);
+            jdbc.execute(String.format(CREATE_SEQUENCE_QUERY, index > 0 ? index : count, (long) BLOCK_SIZE * count));
+            jdbc.execute(CREATE_CHANGE_SEQUENCE_QUERY);
+        }
+
+        private long nextId() {
+            lock.lock();
+            try {
+                if (next >= limit) {
+                    allocateBlock();
+                }
+                var id = next;
+                next += shards.length;
+                return id;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void reserve(long id) {
+            if (id < blockStart) {
+                return;
+            }
+
+            lock.lock();
+            try {
+                if (id >= next && id < limit) {
+                    next = id + shards.length;
+                }
+                if (id >= sequenceNext) {
+                    //read again right before the restart, so the sequence is not moved back below values taken since it was last read
+                    sequenceNext = jdbc.queryForObject(CURRENT_SEQ_VAL_QUERY, Long.class);
+                }
+                if (id >= sequenceNext) {
+                    jdbc.execute(String.format(ALTER_SEQUENCE_QUERY, id + shards.length));
+                    sequenceNext = id + shards.length;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        //rows written by the statements stay locked until their items are numbered, so a later write of the same item
+        //always gets a greater number, while the shard still commits on its own, apart from any running transaction
+        private List<Long> write(Map<Long, Long> numbers, Supplier<List<Long>> statements) {
+            var written = transactions.execute(status -> {
+                var ids = statements.get();
+                WriteSequence.take(numbers, ids);
+                return ids;
+            });
+            if (!written.isEmpty()) {
+                countChange();
+            }
+            return written;
+        }
+
+        //statements of shards commit on their own, so the change is counted right after the write
+        private void countChange() {
+            jdbc.queryForObject(NEXT_CHANGE_QUERY, Long.class);
+        }
+
+        private Long[] own(Collection<Long> ids) {
+            return ids.stream().filter(id -> shard(id) == this).distinct().toArray(Long[]::new);
+        }
+
+        private void allocateBlock() {
+            var value = jdbc.queryForObject(NEXT_SEQ_VAL_QUERY, Long.class);
+            next = value;
+            limit = value + (long) BLOCK_SIZE * shards.length;
+            sequenceNext = limit;
+            blockStart = value;
+        }
+
+    }
+
+}
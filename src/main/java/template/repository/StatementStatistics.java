@@ -0,0 +1,140 @@
+package template.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+//count, time and affected rows of every distinct SQL statement run through the data source
+@Slf4j(topic = "items.sql.slow")
+@Component
+public class StatementStatistics {
+
+    public static final String STATEMENTS_METRIC = "items.sql.statements";
+
+    //literals and IN lists of any length are folded, so that statements differing only in them share statistics
+    private static final Pattern NUMBER = Pattern.compile("\\b\\d+\\b");
+
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\?(\\s*,\\s*\\?)+\\)");
+
+    private static final List<String> EXPLAINABLE = List.of("select", "insert", "update", "delete", "merge");
+
+    private final long slowThresholdNanos;
+
+    private final Map<String, Statistics> statistics = new ConcurrentHashMap<>();
+
+    private final MeterRegistry registry;
+
+    public StatementStatistics(@Value("${items.sql.slow-threshold}") Duration slowThreshold, MeterRegistry registry) {
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.registry = registry;
+    }
+
+    //statements run through the returned data source are recorded, and counted separately for each data source name
+    public DataSource instrument(DataSource dataSource, String name) {
+        return new InstrumentedDataSource(dataSource, this, registry.counter(STATEMENTS_METRIC, "datasource", name));
+    }
+
+    public List<Summary> summaries() {
+        return statistics.entrySet().stream()
+                .map(entry -> entry.getValue().summary(entry.getKey()))
+                .sorted(Comparator.comparingDouble(Summary::totalMillis).reversed())
+                .toList();
+    }
+
+    public void reset() {
+        statistics.clear();
+    }
+
+    //connection is the one that ran the statement, it is used to explain slow statements
+    void record(String sql, long nanos, long rows, Map<Integer, Object> parameters, Connection connection) {
+        var entry = statistics.computeIfAbsent(normalize(sql), key -> new Statistics());
+        entry.record(nanos, rows);
+        if (nanos < slowThresholdNanos) {
+            return;
+        }
+
+        //bind parameters hold item names, so they are only logged at debug level
+        log.warn("Statement took {} ms: {}", TimeUnit.NANOSECONDS.toMillis(nanos), sql);
+        log.debug("Parameters of slow statement: {}", parameters.values());
+
+        //plan is captured once per normalized statement, so that a repeatedly slow statement is not explained on every run
+        if (!entry.explained.compareAndSet(false, true)) {
+            return;
+        }
+        var plan = explain(sql, parameters, connection);
+        if (plan != null) {
+            entry.plan = plan;
+            log.warn("Plan of slow statement: {}", plan);
+        }
+    }
+
+    static String normalize(String sql) {
+        return IN_LIST.matcher(NUMBER.matcher(sql.strip()).replaceAll("?")).replaceAll("(?, ...)");
+    }
+
+    private static String explain(String sql, Map<Integer, Object> parameters, Connection connection) {
+        var statement = sql.strip().toLowerCase(Locale.ROOT);
+        if (EXPLAINABLE.stream().noneMatch(statement::startsWith)) {
+            return null;
+        }
+
+        try (var explain = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (var parameter : parameters.entrySet()) {
+                explain.setObject(parameter.getKey(), parameter.getValue());
+            }
+            try (var plan = explain.executeQuery()) {
+                return plan.next() ? plan.getString(1) : null;
+            }
+        } catch (SQLException e) {
+            log.debug("Could not explain statement: {}", sql, e);
+            return null;
+        }
+    }
+
+    public record Summary(String sql, long count, double totalMillis, double maxMillis, long rows, String plan) {
+    }
+
+    private static final class Statistics {
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private final LongAdder rows = new LongAdder();
+
+        private final AtomicBoolean explained = new AtomicBoolean();
+
+        private volatile String plan;
+
+        private void record(long nanos, long affectedRows) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            rows.add(affectedRows);
+        }
+
+        private Summary summary(String sql) {
+            return new Summary(sql, count.sum(), totalNanos.sum() / 1e6, maxNanos.get() / 1e6, rows.sum(), plan);
+        }
+
+    }
+
+}
@@ -0,0 +1,29 @@
+package template.repository;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+@Component
+class StatementStatisticsPostProcessor implements BeanPostProcessor {
+
+    //resolved lazily, so that this post processor does not force early creation of statistics
+    private final ObjectProvider<StatementStatistics> statistics;
+
+    StatementStatisticsPostProcessor(ObjectProvider<StatementStatistics> statistics) {
+        this.statistics = statistics;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        //data sources that only delegate to others are left as they are, so that statements are not recorded twice
+        if (bean instanceof DataSource dataSource && !(bean instanceof DelegatingDataSource)) {
+            return statistics.getObject().instrument(dataSource, beanName);
+        }
+        return bean;
+    }
+
+}
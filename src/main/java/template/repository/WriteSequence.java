@@ -0,0 +1,113 @@
+package template.repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+//numbers writes of items in the write path of stores, while a later write of the same item is still held back by a
+//lock of the store or a row lock of the database, so it always gets a greater number, and runs what follows the writes
+//of an item in number order, even when their transactions complete in another one
+public final class WriteSequence {
+
+    private static final ReentrantLock LOCK = new ReentrantLock();
+
+    //actions of the numbered writes of every item, null while the write has not completed yet
+    private static final Map<Long, TreeMap<Long, Runnable>> WRITES = new HashMap<>();
+
+    //set only while a write of the service runs, so that stores used on their own number nothing
+    private static final ThreadLocal<Map<Long, Long>> TAKEN = new ThreadLocal<>();
+
+    private static final Runnable NONE = () -> {
+    };
+
+    private static long lastNumber;
+
+    private WriteSequence() {
+    }
+
+    public static void startWrite() {
+        TAKEN.set(new ConcurrentHashMap<>());
+    }
+
+    //numbers that were taken but not claimed belong to writes that failed, so they no longer hold back the others
+    public static void endWrite() {
+        var taken = TAKEN.get();
+        TAKEN.remove();
+        if (taken != null) {
+            taken.forEach((itemId, number) -> complete(itemId, number, null));
+        }
+    }
+
+    //IDs of the items numbered by stores during the running write
+    public static List<Long> numberedIds() {
+        var taken = TAKEN.get();
+        return taken != null ? List.copyOf(taken.keySet()) : List.of();
+    }
+
+    //number a store took for the item, or a new one when it took none, which only keeps the order of writes made in
+    //transactions still holding their row locks
+    public static long claim(long itemId) {
+        var taken = TAKEN.get();
+        var number = taken != null ? taken.remove(itemId) : null;
+        return number != null ? number : register(itemId);
+    }
+
+    //writes that were rolled back complete with no action, so that the ones following them are not held back
+    public static void complete(long itemId, long number, Runnable action) {
+        LOCK.lock();
+        try {
+            var writes = WRITES.get(itemId);
+            writes.put(number, action != null ? action : NONE);
+            while (!writes.isEmpty() && writes.firstEntry().getValue() != null) {
+                writes.pollFirstEntry().getValue().run();
+            }
+            if (writes.isEmpty()) {
+                WRITES.remove(itemId);
+            }
+        } finally {
+            LOCK.unlock();
+        }
+    }
+
+    //called by stores right after an item is written, while it is still locked against other writes
+    static void take(long itemId) {
+        take(numbers(), itemId);
+    }
+
+    //numbers of the running write, passed on to threads writing on its behalf
+    static Map<Long, Long> numbers() {
+        return TAKEN.get();
+    }
+
+    static void take(Map<Long, Long> numbers, long itemId) {
+        if (numbers == null) {
+            return;
+        }
+
+        var previous = numbers.put(itemId, register(itemId));
+        if (previous != null) {
+            //item written twice by the same write, only its last change is kept
+            complete(itemId, previous, null);
+        }
+    }
+
+    static void take(Map<Long, Long> numbers, Collection<Long> itemIds) {
+        itemIds.forEach(itemId -> take(numbers, itemId));
+    }
+
+    private static long register(long itemId) {
+        LOCK.lock();
+        try {
+            var number = ++lastNumber;
+            WRITES.computeIfAbsent(itemId, id -> new TreeMap<>()).put(number, null);
+            return number;
+        } finally {
+            LOCK.unlock();
+        }
+    }
+
+}
@@ -15,4 +15,6 @@ public class Item {
 
     private String name;
 
+    private Long version;
+
 }
@@ -0,0 +1,11 @@
+package template.service;
+
+//name is null for deleted items
+public record ItemChange(long sequence, Type type, long itemId, String name) {
+
+    public enum Type {
+        PUT,
+        DELETE
+    }
+
+}
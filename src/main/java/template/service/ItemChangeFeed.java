@@ -0,0 +1,111 @@
+package template.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+//keeps the latest changes in a ring, readers only hold a sequence number, so a slow reader never makes it grow
+@Component
+public class ItemChangeFeed {
+
+    public static final String RESYNC_METRIC = "items.changes.resyncs";
+
+    private final ItemChange[] ring;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition published = lock.newCondition();
+
+    //sequence starts from zero on every start, so the start time tells apart event IDs of different runs
+    private final String instanceId = Long.toHexString(System.currentTimeMillis());
+
+    private final Counter resyncs;
+
+    private long lastSequence;
+
+    public ItemChangeFeed(@Value("${items.changes.capacity}") int capacity, MeterRegistry registry) {
+        this.ring = new ItemChange[capacity];
+        this.resyncs = registry.counter(RESYNC_METRIC);
+    }
+
+    public void publish(ItemChange.Type type, long itemId, String name) {
+        lock.lock();
+        try {
+            var sequence = ++lastSequence;
+            ring[index(sequence)] = new ItemChange(sequence, type, itemId, name);
+            published.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long lastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //waits until there are changes after the given sequence, returns no changes when the timeout elapses first
+    public Changes await(long afterSequence, Duration timeout) throws InterruptedException {
+        lock.lock();
+        try {
+            var nanos = timeout.toNanos();
+            while (afterSequence == lastSequence && nanos > 0) {
+                nanos = published.awaitNanos(nanos);
+            }
+
+            //changes following the sequence were already overwritten, or it comes from another run
+            var oldestSequence = Math.max(1, lastSequence - ring.length + 1);
+            if (afterSequence + 1 < oldestSequence || afterSequence > lastSequence) {
+                resyncs.increment();
+                return new Changes(List.of(), true);
+            }
+
+            var changes = new ArrayList<ItemChange>((int) (lastSequence - afterSequence));
+            for (var sequence = afterSequence + 1; sequence <= lastSequence; sequence++) {
+                changes.add(ring[index(sequence)]);
+            }
+            return new Changes(changes, false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String eventId(long sequence) {
+        return instanceId + "-" + sequence;
+    }
+
+    //returns no sequence for event IDs of other runs, which cannot be resumed
+    public OptionalLong sequenceOf(String eventId) {
+        var prefix = instanceId + "-";
+        if (!eventId.startsWith(prefix)) {
+            return OptionalLong.empty();
+        }
+
+        try {
+            return OptionalLong.of(Long.parseLong(eventId.substring(prefix.length())));
+        } catch (NumberFormatException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence % ring.length);
+    }
+
+    //resync tells the reader that changes were lost, so it has to read all items again
+    public record Changes(List<ItemChange> changes, boolean resync) {
+    }
+
+}
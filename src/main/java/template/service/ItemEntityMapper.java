@@ -0,0 +1,16 @@
+package template.service;
+
+import org.mapstruct.Builder;
+import org.mapstruct.Mapper;
+import template.repository.ItemEntity;
+
+import static org.mapstruct.MappingConstants.ComponentModel.SPRING;
+
+@Mapper(componentModel = SPRING, builder = @Builder(disableBuilder = true))
+public interface ItemEntityMapper {
+
+    Item toDomainObject(ItemEntity itemEntity);
+
+    ItemEntity toEntity(Item item);
+
+}
@@ -0,0 +1,162 @@
+package template.service;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import template.repository.ItemStore;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+//in-memory index of item names, trigrams narrow down candidates of both prefix and substring queries, all of them kept
+//in ID order, so that a page is read up to its limit without sorting all matches
+@Component
+public class ItemNameIndex implements SmartInitializingSingleton {
+
+    static final int GRAM_LENGTH = 3;
+
+    private final ItemStore repository;
+
+    private final NavigableMap<Long, String> names = new ConcurrentSkipListMap<>();
+
+    private final Map<String, Postings> grams = new ConcurrentHashMap<>();
+
+    public ItemNameIndex(ItemStore repository) {
+        this.repository = repository;
+    }
+
+    //runs once all beans, including database initialization, are ready and before requests are served
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    public synchronized void rebuild() {
+        names.clear();
+        grams.clear();
+        repository.forEach(entity -> put(entity.getId(), entity.getName()));
+    }
+
+    //writes are serialized, reads go on without locking and verify candidates against current names
+    public synchronized void put(long id, String name) {
+        var normalized = normalize(name);
+        var previous = names.put(id, normalized);
+        if (normalized.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            unindex(id, previous);
+        }
+
+        grams(normalized).forEach(gram -> grams.computeIfAbsent(gram, key -> new Postings()).add(id));
+    }
+
+    public synchronized void remove(long id) {
+        var previous = names.remove(id);
+        if (previous != null) {
+            unindex(id, previous);
+        }
+    }
+
+    public List<Long> findByPrefix(String prefix, Long afterId, int limit) {
+        var query = normalize(prefix);
+        return find(query, name -> name.startsWith(query), afterId, limit);
+    }
+
+    public List<Long> findContaining(String text, Long afterId, int limit) {
+        var query = normalize(text);
+        return find(query, name -> name.contains(query), afterId, limit);
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    static String normalize(String name) {
+        return name != null ? name.toLowerCase(Locale.ROOT) : "";
+    }
+
+    private void unindex(long id, String name) {
+        grams(name).forEach(gram -> {
+            var postings = grams.get(gram);
+            postings.remove(id);
+            if (postings.size == 0) {
+                grams.remove(gram);
+            }
+        });
+    }
+
+    private List<Long> find(String query, Predicate<String> matches, Long afterId, int limit) {
+        var candidates = candidates(query);
+        var ids = new ArrayList<Long>();
+        for (var id : afterId != null ? candidates.tailSet(afterId, false) : candidates) {
+            if (ids.size() == limit) {
+                break;
+            }
+
+            var name = names.get(id);
+            if (name != null && matches.test(name)) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private NavigableSet<Long> candidates(String query) {
+        if (query.length() < GRAM_LENGTH) {
+            //too short to have a trigram, so all names are candidates, read in ID order only up to the end of the page
+            return names.navigableKeySet();
+        }
+
+        //every trigram of the query occurs in a matching name, so the shortest posting list bounds the candidates
+        Postings candidates = null;
+        for (var gram : grams(query).toList()) {
+            var postings = grams.get(gram);
+            if (postings == null) {
+                return Collections.emptyNavigableSet();
+            }
+            if (candidates == null || postings.size < candidates.size) {
+                candidates = postings;
+            }
+        }
+        return candidates.ids;
+    }
+
+    private static Stream<String> grams(String name) {
+        return Stream.iterate(0, i -> i + GRAM_LENGTH <= name.length(), i -> i + 1)
+                .map(i -> name.substring(i, i + GRAM_LENGTH))
+                .distinct();
+    }
+
+    //IDs of names containing a trigram, with their count kept aside, as counting a skip list walks all of it
+    private static final class Postings {
+
+        private final NavigableSet<Long> ids = new ConcurrentSkipListSet<>();
+
+        //changed only by serialized writes
+        private volatile int size;
+
+        private void add(long id) {
+            if (ids.add(id)) {
+                size++;
+            }
+        }
+
+        private void remove(long id) {
+            if (ids.remove(id)) {
+                size--;
+            }
+        }
+
+    }
+
+}
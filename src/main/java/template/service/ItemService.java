@@ -1,58 +1,332 @@
 package template.service;
 
 import com.google.common.annotations.VisibleForTesting;
-import jakarta.transaction.Transactional;
-import lombok.AllArgsConstructor;
-import org.modelmapper.ModelMapper;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import template.exception.ItemIdAlreadySetException;
 import template.repository.ItemEntity;
-import template.repository.ItemRepository;
+import template.repository.ItemStore;
+import template.repository.ReplicaRoutingDataSource;
+import template.repository.WriteSequence;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 @Service
-@AllArgsConstructor
 public class ItemService {
 
-    private final ItemRepository repository;
+    public static final String METRIC = "items.service";
 
-    private final ModelMapper mapper;
+    public static final String ITEMS_CACHE = "items";
 
+    public static final String COALESCED_METRIC = "items.service.coalesced";
+
+    private static final String ALL_ITEMS = "all";
+
+    private static final String PINNED_TO_PRIMARY = "T(template.repository.ReplicaRoutingDataSource).isPinnedToPrimary()";
+
+    private static final String READS_FROM_REPLICA = "T(template.repository.ReplicaRoutingDataSource).readsFromReplica()";
+
+    private final ItemStore repository;
+
+    private final ItemEntityMapper mapper;
+
+    private final ItemNameIndex nameIndex;
+
+    private final ItemChangeFeed changeFeed;
+
+    private final SingleFlight<Long, Optional<Item>> itemLoads;
+
+    private final SingleFlight<String, List<Item>> listLoads;
+
+    public ItemService(ItemStore repository, ItemEntityMapper mapper, ItemNameIndex nameIndex, ItemChangeFeed changeFeed,
+                       MeterRegistry registry) {
+        this.repository = repository;
+        this.mapper = mapper;
+        this.nameIndex = nameIndex;
+        this.changeFeed = changeFeed;
+        this.itemLoads = new SingleFlight<>(registry.counter(COALESCED_METRIC, "operation", "get"));
+        this.listLoads = new SingleFlight<>(registry.counter(COALESCED_METRIC, "operation", "getAll"));
+    }
+
+    //reads pinned to the primary skip the cache, which may hold a value read before their client wrote, and only
+    //refresh it, while values read from replicas are never cached, as they may lag behind the primary
+    @Timed(value = METRIC, extraTags = {"operation", "get"}, histogram = true)
+    @Transactional(readOnly = true)
+    @Caching(
+            cacheable = @Cacheable(cacheNames = ITEMS_CACHE, condition = "!" + PINNED_TO_PRIMARY, unless = "#result == null || " + READS_FROM_REPLICA),
+            put = @CachePut(cacheNames = ITEMS_CACHE, condition = PINNED_TO_PRIMARY, unless = "#result == null")
+    )
     public Optional<Item> get(Long id) {
-        return repository.findById(id).map(this::toDomainObject);
+        //coalesced below the cache, so that a burst of misses for the same item runs a single query, except for reads
+        //pinned to the primary, which must not join a load running on a replica
+        if (ReplicaRoutingDataSource.isPinnedToPrimary()) {
+            return repository.findById(id).map(this::toDomainObject);
+        }
+        return itemLoads.load(id, () -> repository.findById(id).map(this::toDomainObject));
     }
 
+    @Timed(value = METRIC, extraTags = {"operation", "getAll"}, histogram = true)
+    @Transactional(readOnly = true)
     public List<Item> get() {
-        return repository.findAll().stream().map(this::toDomainObject).toList();
+        if (ReplicaRoutingDataSource.isPinnedToPrimary()) {
+            return repository.findAll().stream().map(this::toDomainObject).toList();
+        }
+        //returned list is unmodifiable, so it can be shared by all callers of the same load
+        return listLoads.load(ALL_ITEMS, () -> repository.findAll().stream().map(this::toDomainObject).toList());
+    }
+
+    @Timed(value = METRIC, extraTags = {"operation", "getPage"}, histogram = true)
+    @Transactional(readOnly = true)
+    public List<Item> get(Long afterId, int limit) {
+        return repository.findPage(afterId, limit).stream().map(this::toDomainObject).toList();
+    }
+
+    @Timed(value = METRIC, extraTags = {"operation", "stream"}, histogram = true)
+    @Transactional(readOnly = true)
+    public void forEach(Consumer<Item> action) {
+        repository.forEach(entity -> action.accept(toDomainObject(entity)));
+    }
+
+    @Timed(value = METRIC, extraTags = {"operation", "searchPrefix"}, histogram = true)
+    @Transactional(readOnly = true)
+    public List<Item> searchByPrefix(String prefix, Long afterId, int limit) {
+        var query = ItemNameIndex.normalize(prefix);
+        return search((cursor, count) -> nameIndex.findByPrefix(prefix, cursor, count), name -> name.startsWith(query), afterId, limit);
+    }
+
+    @Timed(value = METRIC, extraTags = {"operation", "searchContains"}, histogram = true)
+    @Transactional(readOnly = true)
+    public List<Item> searchContaining(String text, Long afterId, int limit) {
+        var query = ItemNameIndex.normalize(text);
+        return search((cursor, count) -> nameIndex.findContaining(text, cursor, count), name -> name.contains(query), afterId, limit);
+    }
+
+    //passes only the values of items, so that no Item objects are created for each of them
+    @Timed(value = METRIC, extraTags = {"operation", "streamValues"}, histogram = true)
+    @Transactional(readOnly = true)
+    public void forEachValue(ValueConsumer action) {
+        repository.forEach(entity -> action.accept(entity.getId(), entity.getName()));
+    }
+
+    @Transactional(readOnly = true)
+    public String getVersion() {
+        return repository.getVersion();
     }
 
+    public boolean joinsTransaction() {
+        return repository.joinsTransaction();
+    }
+
+    @Timed(value = METRIC, extraTags = {"operation", "create"}, histogram = true)
     @Transactional
     public void create(Item item) {
         if (item.getId() != null) {
             throw new ItemIdAlreadySetException(item.getId());
         }
-        repository.create(toEntity(item));
+        var entity = toEntity(item);
+        WriteSequence.startWrite();
+        try {
+            repository.create(entity);
+            afterCommit(List.of(entity.getId()), id -> put(id, entity.getName()));
+        } finally {
+            WriteSequence.endWrite();
+        }
     }
 
+    @Timed(value = METRIC, extraTags = {"operation", "upsert"}, histogram = true)
     @Transactional
+    @CacheEvict(cacheNames = ITEMS_CACHE, key = "#itemId")
     public void upsert(Long itemId, Item item) {
-        repository.upsert(itemId, toEntity(item));
+        WriteSequence.startWrite();
+        try {
+            repository.upsert(itemId, toEntity(item));
+            afterCommit(List.of(itemId), id -> put(id, item.getName()));
+        } finally {
+            WriteSequence.endWrite();
+        }
+    }
+
+    @Timed(value = METRIC, extraTags = {"operation", "replace"}, histogram = true)
+    @Transactional
+    @CacheEvict(cacheNames = ITEMS_CACHE, key = "#itemId")
+    public boolean replace(Long itemId, Item item, Long expectedVersion) {
+        WriteSequence.startWrite();
+        try {
+            var replaced = repository.replace(itemId, toEntity(item), expectedVersion);
+            if (replaced) {
+                afterCommit(List.of(itemId), id -> put(id, item.getName()));
+            }
+            return replaced;
+        } finally {
+            WriteSequence.endWrite();
+        }
     }
 
-    public void delete(Long id) {
-        repository.deleteById(id);
+    //precondition is checked against the current item, which is then replaced only if neither its version nor its name
+    //has changed since, so the replaced item is always one the precondition holds for
+    @Timed(value = METRIC, extraTags = {"operation", "replace"}, histogram = true)
+    @Transactional
+    @CacheEvict(cacheNames = ITEMS_CACHE, key = "#itemId")
+    public boolean replaceIf(Long itemId, Item item, Predicate<Item> precondition) {
+        var current = repository.findById(itemId);
+        if (current.isEmpty() || !precondition.test(toDomainObject(current.get()))) {
+            return false;
+        }
+
+        WriteSequence.startWrite();
+        try {
+            var replaced = repository.replace(itemId, toEntity(item), current.get());
+            if (replaced) {
+                afterCommit(List.of(itemId), id -> put(id, item.getName()));
+            }
+            return replaced;
+        } finally {
+            WriteSequence.endWrite();
+        }
+    }
+
+    @Timed(value = METRIC, extraTags = {"operation", "createAll"}, histogram = true)
+    @Transactional
+    public void createAll(List<Item> items) {
+        items.stream().filter(item -> item.getId() != null).findFirst().ifPresent(item -> {
+            throw new ItemIdAlreadySetException(item.getId());
+        });
+        var entities = items.stream().map(this::toEntity).toList();
+        WriteSequence.startWrite();
+        try {
+            repository.createAll(entities);
+            var names = new HashMap<Long, String>();
+            entities.forEach(entity -> names.put(entity.getId(), entity.getName()));
+            afterCommit(names.keySet(), id -> put(id, names.get(id)));
+        } finally {
+            WriteSequence.endWrite();
+        }
+    }
+
+    @Timed(value = METRIC, extraTags = {"operation", "upsertAll"}, histogram = true)
+    @Transactional
+    @CacheEvict(cacheNames = ITEMS_CACHE, allEntries = true)
+    public void upsertAll(List<Item> items) {
+        WriteSequence.startWrite();
+        try {
+            repository.upsertAll(items.stream().map(this::toEntity).toList());
+            //an item upserted more than once by the batch ends with its last name
+            var names = new HashMap<Long, String>();
+            items.forEach(item -> names.put(item.getId(), item.getName()));
+            afterCommit(names.keySet(), id -> put(id, names.get(id)));
+        } finally {
+            WriteSequence.endWrite();
+        }
+    }
+
+    @Timed(value = METRIC, extraTags = {"operation", "delete"}, histogram = true)
+    @CacheEvict(cacheNames = ITEMS_CACHE, key = "#id")
+    public boolean delete(Long id) {
+        WriteSequence.startWrite();
+        try {
+            var deleted = repository.deleteById(id);
+            if (deleted) {
+                afterCommit(List.of(id), this::remove);
+            }
+            return deleted;
+        } finally {
+            WriteSequence.endWrite();
+        }
+    }
+
+    @Timed(value = METRIC, extraTags = {"operation", "deleteAll"}, histogram = true)
+    @CacheEvict(cacheNames = ITEMS_CACHE, allEntries = true)
+    public int deleteAll(List<Long> ids) {
+        WriteSequence.startWrite();
+        try {
+            //store does not tell which of the items it deleted, but it numbers each of them
+            var count = repository.deleteAllById(ids);
+            afterCommit(WriteSequence.numberedIds(), this::remove);
+            return count;
+        } finally {
+            WriteSequence.endWrite();
+        }
+    }
+
+    public interface ValueConsumer {
+
+        void accept(long id, String name);
+
+    }
+
+    //index is only a filter, so candidates are checked again against names of the items actually loaded, and more of
+    //them are fetched for the ones dropped, so that a page is only short when no further matches exist
+    private List<Item> search(BiFunction<Long, Integer, List<Long>> candidates, Predicate<String> matches, Long afterId, int limit) {
+        var items = new ArrayList<Item>(limit);
+        var cursor = afterId;
+        while (items.size() < limit) {
+            var requested = limit - items.size();
+            var ids = candidates.apply(cursor, requested);
+            repository.findAllById(ids).stream()
+                    .filter(entity -> matches.test(ItemNameIndex.normalize(entity.getName())))
+                    .map(this::toDomainObject)
+                    .forEach(items::add);
+            if (ids.size() < requested) {
+                break;
+            }
+            cursor = ids.getLast();
+        }
+        return items;
+    }
+
+    private void put(long id, String name) {
+        nameIndex.put(id, name);
+        changeFeed.publish(ItemChange.Type.PUT, id, name);
+    }
+
+    private void remove(long id) {
+        nameIndex.remove(id);
+        changeFeed.publish(ItemChange.Type.DELETE, id, null);
+    }
+
+    //numbers are claimed right after the write, so that changes of an item run in the order it was written, whichever
+    //transaction completes first
+    private void afterCommit(Collection<Long> ids, Consumer<Long> action) {
+        var numbers = new HashMap<Long, Long>();
+        ids.forEach(id -> numbers.put(id, WriteSequence.claim(id)));
+        //writes of stores outside of the transaction are kept whatever happens to it, so they are published right away
+        if (!repository.joinsTransaction() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            numbers.forEach((id, number) -> WriteSequence.complete(id, number, () -> action.accept(id)));
+            return;
+        }
+
+        //index is updated after commit, so it never points to changes that were rolled back
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                numbers.forEach((id, number) -> WriteSequence.complete(id, number, status == STATUS_COMMITTED ? () -> action.accept(id) : null));
+            }
+        });
     }
 
     @VisibleForTesting
     Item toDomainObject(ItemEntity itemEntity) {
-        return mapper.map(itemEntity, Item.class);
+        return mapper.toDomainObject(itemEntity);
     }
 
     @VisibleForTesting
     ItemEntity toEntity(Item item) {
-        return mapper.map(item, ItemEntity.class);
+        return mapper.toEntity(item);
     }
 
 }
@@ -0,0 +1,110 @@
+package template.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import template.exception.ItemImportException;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//moves any number of items in and out of the service with memory use bounded by the size of a single chunk
+@Slf4j
+@Component
+public class ItemTransfer {
+
+    public static final String IMPORTED_METRIC = "items.import.items";
+
+    public static final String EXPORTED_METRIC = "items.export.items";
+
+    public static final int CHUNK_SIZE = 1000;
+
+    private final ItemService service;
+
+    private final Counter imported;
+
+    private final Counter exported;
+
+    public ItemTransfer(ItemService service, MeterRegistry registry) {
+        this.service = service;
+        this.imported = registry.counter(IMPORTED_METRIC);
+        this.exported = registry.counter(EXPORTED_METRIC);
+    }
+
+    //items are written in the order they were read, every run of items with IDs within a chunk is upserted and every
+    //run of items without them is created, each run committed in its own transaction
+    public long importItems(Iterator<Item> items) {
+        var start = System.nanoTime();
+        var chunk = new ArrayList<Item>(CHUNK_SIZE);
+        long count = 0;
+        while (true) {
+            Item item;
+            try {
+                if (!items.hasNext()) {
+                    break;
+                }
+                item = items.next();
+            } catch (RuntimeException e) {
+                //items read before the invalid one are still imported, so that the reported count is exact
+                count += write(chunk);
+                throw new ItemImportException(count, e);
+            }
+
+            chunk.add(item);
+            if (chunk.size() == CHUNK_SIZE) {
+                count += write(chunk);
+            }
+        }
+        count += write(chunk);
+
+        logRate("Imported", count, start);
+        return count;
+    }
+
+    public long exportItems(ItemService.ValueConsumer action) {
+        var start = System.nanoTime();
+        var count = new AtomicLong();
+        service.forEachValue((id, name) -> {
+            action.accept(id, name);
+            count.incrementAndGet();
+            exported.increment();
+        });
+
+        logRate("Exported", count.get(), start);
+        return count.get();
+    }
+
+    private long write(List<Item> chunk) {
+        var from = 0;
+        for (var to = 1; to <= chunk.size(); to++) {
+            if (to == chunk.size() || hasId(chunk.get(to)) != hasId(chunk.get(from))) {
+                var run = List.copyOf(chunk.subList(from, to));
+                if (hasId(run.getFirst())) {
+                    service.upsertAll(run);
+                } else {
+                    service.createAll(run);
+                }
+                imported.increment(run.size());
+                from = to;
+            }
+        }
+
+        var size = chunk.size();
+        chunk.clear();
+        return size;
+    }
+
+    private static boolean hasId(Item item) {
+        return item.getId() != null;
+    }
+
+    private static void logRate(String operation, long count, long start) {
+        var millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        log.info("{} {} items in {} ms, {} items/s", operation, count, millis, count * 1000 / millis);
+    }
+
+}
@@ -0,0 +1,201 @@
+package template.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static template.service.ItemService.ITEMS_CACHE;
+
+@Slf4j
+@Component
+public class ItemWriteBehind {
+
+    public static final String QUEUE_DEPTH_METRIC = "items.writes.queue.depth";
+
+    public static final String BATCH_SIZE_METRIC = "items.writes.batch.size";
+
+    public static final String REJECTED_METRIC = "items.writes.rejected";
+
+    public static final String FAILED_METRIC = "items.writes.failed";
+
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    private final ItemService service;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Cache cache;
+
+    private final boolean enabled;
+
+    private final int maxBatchSize;
+
+    private final BlockingQueue<Write> queue;
+
+    private final AtomicLong tickets = new AtomicLong();
+
+    private final DistributionSummary batchSizes;
+
+    private final Counter rejected;
+
+    private final Counter failed;
+
+    private volatile boolean running;
+
+    private Thread writer;
+
+    public ItemWriteBehind(ItemService service,
+                           PlatformTransactionManager transactionManager,
+                           CacheManager cacheManager,
+                           MeterRegistry registry,
+                           @Value("${items.writes.async.enabled}") boolean enabled,
+                           @Value("${items.writes.async.queue-capacity}") int queueCapacity,
+                           @Value("${items.writes.async.max-batch-size}") int maxBatchSize) {
+        this.service = service;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cache = cacheManager.getCache(ITEMS_CACHE);
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        Gauge.builder(QUEUE_DEPTH_METRIC, queue, Collection::size).register(registry);
+        this.batchSizes = DistributionSummary.builder(BATCH_SIZE_METRIC).publishPercentileHistogram().register(registry);
+        this.rejected = registry.counter(REJECTED_METRIC);
+        this.failed = registry.counter(FAILED_METRIC);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public OptionalLong submitCreate(Item item) {
+        return submit(null, item);
+    }
+
+    public OptionalLong submitUpsert(Long itemId, Item item) {
+        return submit(itemId, item);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+
+        running = true;
+        writer = Thread.ofPlatform().name("item-writer").daemon().start(this::drain);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+
+        //writer finishes the writes that are already accepted before it stops
+        running = false;
+        writer.join();
+    }
+
+    private OptionalLong submit(Long itemId, Item item) {
+        var write = new Write(tickets.incrementAndGet(), itemId, item);
+        if (!queue.offer(write)) {
+            rejected.increment();
+            return OptionalLong.empty();
+        }
+
+        return OptionalLong.of(write.ticket());
+    }
+
+    private void drain() {
+        var batch = new ArrayList<Write>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                var first = queue.poll(POLL_TIMEOUT_MILLIS, MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<Write> batch) {
+        //writes of a store outside of the transaction are kept even when their group fails, so applying them again
+        //would create items twice, instead each of them is applied once on its own
+        if (!service.joinsTransaction()) {
+            batch.forEach(this::commitAlone);
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> batch.forEach(this::apply));
+        } catch (RuntimeException e) {
+            //a single failing write must not discard the other writes of its group
+            log.warn("Group commit of {} writes failed, committing them one by one", batch.size(), e);
+            batch.forEach(this::commitAlone);
+            return;
+        }
+
+        batchSizes.record(batch.size());
+        batch.forEach(this::evict);
+    }
+
+    private void commitAlone(Write write) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> apply(write));
+        } catch (RuntimeException e) {
+            failed.increment();
+            log.error("Write with ticket {} failed", write.ticket(), e);
+            return;
+        }
+
+        batchSizes.record(1);
+        evict(write);
+    }
+
+    private void apply(Write write) {
+        if (write.itemId() == null) {
+            service.create(write.item());
+        } else {
+            service.upsert(write.itemId(), write.item());
+        }
+    }
+
+    private void evict(Write write) {
+        //upsert evicts the item before the group is committed, so it is evicted again once new data is visible
+        if (write.itemId() != null && cache != null) {
+            cache.evict(write.itemId());
+        }
+    }
+
+    private record Write(long ticket, Long itemId, Item item) {
+    }
+
+}
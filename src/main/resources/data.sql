@@ -1,2 +1,2 @@
-CREATE TABLE ITEM_SEQ_LOCK (id INT PRIMARY KEY);
-INSERT INTO ITEM_SEQ_LOCK(id) VALUES (1);
\ No newline at end of file
+CREATE SEQUENCE ITEM_SEQ START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE ITEM_CHANGE_SEQ;
\ No newline at end of file
@@ -0,0 +1,64 @@
+package template.api;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.TestPropertySource;
+import template.AbstractIntegrationTest;
+import template.api.model.ItemDTO;
+
+import java.time.Duration;
+
+import static io.restassured.RestAssured.given;
+import static io.restassured.RestAssured.when;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.notNullValue;
+import static template.api.ItemController.TICKET_HEADER;
+
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:layered-async-test",
+        "items.writes.async.enabled=true"
+})
+class ItemControllerAsyncWriteIntegrationTest extends AbstractIntegrationTest {
+
+    @Test
+    void shouldAcceptPostRequestAndCreateItemInBackground() {
+        //when POST request with item is sent
+        given()
+                .contentType("application/json")
+                .body(new ItemDTO().name("Item D"))
+                .when()
+                .post("/items")
+                .then()
+                .statusCode(202)
+                .header(TICKET_HEADER, notNullValue());
+
+        //then item is eventually created
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> when()
+                .get("/items")
+                .then()
+                .statusCode(200)
+                .body("name", hasItem("Item D")));
+    }
+
+    @Test
+    void shouldAcceptPutRequestAndUpsertItemInBackground() {
+        //when PUT request with item is sent
+        given()
+                .contentType("application/json")
+                .body(new ItemDTO().id(100L).name("Item E"))
+                .when()
+                .put("/items/100")
+                .then()
+                .statusCode(202)
+                .header(TICKET_HEADER, notNullValue());
+
+        //then item is eventually upserted
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> when()
+                .get("/items/100")
+                .then()
+                .statusCode(200)
+                .body("name", equalTo("Item E")));
+    }
+
+}
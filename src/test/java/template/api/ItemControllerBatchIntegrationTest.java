@@ -0,0 +1,142 @@
+package template.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.TestPropertySource;
+import template.AbstractIntegrationTest;
+import template.api.model.ItemDTO;
+
+import java.util.List;
+
+import static io.restassured.RestAssured.given;
+import static io.restassured.RestAssured.when;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.notNullValue;
+
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:layered-batch-test")
+class ItemControllerBatchIntegrationTest extends AbstractIntegrationTest {
+
+    private final ObjectWriter objectWriter = new ObjectMapper().writer();
+
+    @Test
+    void shouldCreateItemsByPostRequest() {
+        //given items
+        var items = List.of(new ItemDTO().name("Item D"), new ItemDTO().name("Item E"));
+
+        //when POST request with items is sent
+        given()
+                .contentType("application/json")
+                .body(items)
+                .when()
+                .post("/items/batch")
+                .then()
+                .statusCode(200);
+
+        //then items can be retrieved with IDs assigned by server
+        var ids = when()
+                .get("/items?afterId=3")
+                .then()
+                .statusCode(200)
+                .assertThat()
+                .body("name", contains("Item D", "Item E"))
+                .body("id", everyItem(notNullValue()))
+                .extract()
+                .jsonPath()
+                .getList("id", Long.class);
+
+        //cleanup
+        ids.forEach(id -> when().delete("/items/" + id).then().statusCode(200));
+    }
+
+    @Test
+    void shouldNotAcceptPostRequestWhenItemHasID() {
+        given()
+                .contentType("application/json")
+                .body(List.of(new ItemDTO().name("Item D"), new ItemDTO().id(5L).name("Item E")))
+                .when()
+                .post("/items/batch")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    void shouldUpsertItemsByPutRequest() throws JsonProcessingException {
+        //given items replacing existing item and adding new one
+        var items = List.of(new ItemDTO().id(3L).name("Item C2"), new ItemDTO().id(100L).name("Item D"));
+
+        //when PUT request with items is sent
+        given()
+                .contentType("application/json")
+                .body(items)
+                .when()
+                .put("/items/batch")
+                .then()
+                .statusCode(200);
+
+        //then items can be retrieved by ID
+        when()
+                .get("/items?afterId=2")
+                .then()
+                .statusCode(200)
+                .assertThat()
+                .body(equalTo(objectWriter.writeValueAsString(items)));
+
+        //cleanup
+        given()
+                .contentType("application/json")
+                .body(new ItemDTO().id(3L).name("Item C"))
+                .when()
+                .put("/items/3")
+                .then()
+                .statusCode(200);
+        when()
+                .delete("/items/100")
+                .then()
+                .statusCode(200);
+    }
+
+    @Test
+    void shouldDeleteItemsByDeleteRequest() {
+        //given existing items
+        given()
+                .contentType("application/json")
+                .body(List.of(new ItemDTO().id(101L).name("Item D"), new ItemDTO().id(102L).name("Item E")))
+                .when()
+                .put("/items/batch")
+                .then()
+                .statusCode(200);
+
+        //when DELETE request with their IDs and ID of missing item is sent
+        when()
+                .delete("/items?ids=101,102,103")
+                .then()
+                .statusCode(200)
+                .header("X-Deleted-Count", "2");
+
+        //then items can no longer be retrieved by ID
+        when()
+                .get("/items/101")
+                .then()
+                .statusCode(404);
+        when()
+                .get("/items/102")
+                .then()
+                .statusCode(404);
+    }
+
+    @Test
+    void shouldNotAcceptPutRequestWhenItemHasNoID() {
+        given()
+                .contentType("application/json")
+                .body(List.of(new ItemDTO().id(4L).name("Item D"), new ItemDTO().name("Item E")))
+                .when()
+                .put("/items/batch")
+                .then()
+                .statusCode(400);
+    }
+
+}
@@ -0,0 +1,90 @@
+package template.api;
+
+import io.restassured.RestAssured;
+import org.junit.jupiter.api.Test;
+import template.AbstractIntegrationTest;
+import template.api.model.ItemDTO;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static io.restassured.RestAssured.given;
+import static io.restassured.RestAssured.when;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ItemControllerChangesIntegrationTest extends AbstractIntegrationTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void shouldStreamChanges() throws Exception {
+        //given client subscribed to changes
+        var response = subscribe(null);
+
+        //when item is put and deleted
+        given()
+                .contentType("application/json")
+                .body(new ItemDTO().id(4L).name("Item D"))
+                .when()
+                .put("/items/4")
+                .then()
+                .statusCode(200);
+        when()
+                .delete("/items/4")
+                .then()
+                .statusCode(200);
+
+        //then both changes are streamed in order
+        var lines = read(response.body(), 8);
+        assertTrue(lines.get(0).startsWith("id:"));
+        assertEquals("event:put", lines.get(1));
+        assertEquals("data:{\"id\":4,\"name\":\"Item D\"}", lines.get(2));
+        assertTrue(lines.get(4).startsWith("id:"));
+        assertEquals("event:delete", lines.get(5));
+    }
+
+    @Test
+    void shouldRequireResyncForUnknownLastEventId() throws Exception {
+        //when client resumes from event of another run
+        var response = subscribe("0-1");
+
+        //then it is told to read all items again
+        var lines = read(response.body(), 3);
+        assertTrue(lines.get(0).startsWith("id:"));
+        assertEquals("event:" + ItemChangeStream.RESYNC_EVENT, lines.get(1));
+    }
+
+    private HttpResponse<Stream<String>> subscribe(String lastEventId) throws Exception {
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + RestAssured.port + "/items/changes"))
+                .header("Accept", "text/event-stream");
+        if (lastEventId != null) {
+            request.header(ItemController.LAST_EVENT_ID_HEADER, lastEventId);
+        }
+
+        //returns once headers are received, so the subscription is in place before anything is written
+        var response = client.sendAsync(request.build(), HttpResponse.BodyHandlers.ofLines()).get(10, TimeUnit.SECONDS);
+        assertEquals(200, response.statusCode());
+        return response;
+    }
+
+    private List<String> read(Stream<String> body, int count) throws Exception {
+        return supplyAsync(() -> {
+            var lines = new ArrayList<String>();
+            var iterator = body.iterator();
+            while (lines.size() < count && iterator.hasNext()) {
+                lines.add(iterator.next());
+            }
+            body.close();
+            return lines;
+        }).get(10, TimeUnit.SECONDS);
+    }
+
+}
@@ -0,0 +1,102 @@
+package template.api;
+
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.TestPropertySource;
+import template.AbstractIntegrationTest;
+import template.api.model.ItemDTO;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static io.restassured.RestAssured.given;
+import static io.restassured.RestAssured.when;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static template.config.WebConfig.APPLICATION_SMILE_VALUE;
+
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:layered-format-test")
+class ItemControllerFormatIntegrationTest extends AbstractIntegrationTest {
+
+    @Test
+    void shouldGetItemAsCbor() throws IOException {
+        //when item is requested as CBOR
+        var body = given()
+                .accept("application/cbor")
+                .when()
+                .get("/items/1")
+                .then()
+                .statusCode(200)
+                .contentType("application/cbor")
+                .header("Vary", containsString("Accept"))
+                .extract()
+                .asByteArray();
+
+        //then item can be decoded
+        assertEquals(new ItemDTO().id(1L).name("Item A"), new CBORMapper().readValue(body, ItemDTO.class));
+    }
+
+    @Test
+    void shouldGetItemsAsSmile() throws IOException {
+        //when items are requested as Smile
+        var body = given()
+                .accept(APPLICATION_SMILE_VALUE)
+                .when()
+                .get("/items?limit=2")
+                .then()
+                .statusCode(200)
+                .contentType(APPLICATION_SMILE_VALUE)
+                .extract()
+                .asByteArray();
+
+        //then items can be decoded
+        var items = new SmileMapper().readerForListOf(ItemDTO.class).readValue(body);
+        assertEquals(List.of(new ItemDTO().id(1L).name("Item A"), new ItemDTO().id(2L).name("Item B")), items);
+    }
+
+    @Test
+    void shouldCompressLargeResponse() {
+        //given enough items to exceed the compression threshold
+        var items = IntStream.range(0, 200).mapToObj(i -> new ItemDTO().name("Compressed item " + i)).toList();
+        given()
+                .contentType("application/json")
+                .body(items)
+                .when()
+                .post("/items/batch")
+                .then()
+                .statusCode(200);
+
+        //when items are requested with gzip accepted
+        //then response is compressed
+        var ids = given()
+                .header("Accept-Encoding", "gzip")
+                .when()
+                .get("/items")
+                .then()
+                .statusCode(200)
+                .header("Content-Encoding", equalTo("gzip"))
+                .extract()
+                .jsonPath()
+                .getList("id", Long.class);
+
+        //and small response is not compressed
+        given()
+                .header("Accept-Encoding", "gzip")
+                .when()
+                .get("/items/1")
+                .then()
+                .statusCode(200)
+                .header("Content-Encoding", nullValue());
+
+        //cleanup
+        when()
+                .delete("/items?ids=" + String.join(",", ids.stream().filter(id -> id > 3).map(String::valueOf).toList()))
+                .then()
+                .statusCode(200);
+    }
+
+}
@@ -0,0 +1,61 @@
+package template.api;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import template.AbstractIntegrationTest;
+import template.api.model.ItemDTO;
+import template.repository.InMemoryItemStore;
+import template.repository.ItemStore;
+
+import static io.restassured.RestAssured.given;
+import static io.restassured.RestAssured.when;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+@ActiveProfiles(InMemoryItemStore.PROFILE)
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:layered-in-memory-test")
+class ItemControllerInMemoryIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private ItemStore store;
+
+    @Test
+    void shouldUseInMemoryStore() {
+        assertInstanceOf(InMemoryItemStore.class, store);
+    }
+
+    @Test
+    void shouldPutGetAndDeleteItem() {
+        //given item
+        var item = new ItemDTO().id(1L).name("Item A");
+
+        //when item is put
+        given()
+                .contentType("application/json")
+                .body(item)
+                .when()
+                .put("/items/1")
+                .then()
+                .statusCode(200);
+
+        //then item can be retrieved by ID
+        when()
+                .get("/items/1")
+                .then()
+                .statusCode(200)
+                .body("name", equalTo("Item A"));
+
+        //and item can be deleted
+        when()
+                .delete("/items/1")
+                .then()
+                .statusCode(200);
+        when()
+                .get("/items/1")
+                .then()
+                .statusCode(404);
+    }
+
+}
@@ -4,18 +4,28 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import template.AbstractIntegrationTest;
 import template.api.model.ItemDTO;
+import template.repository.StatementStatistics;
+
+import java.util.List;
 
 import static io.restassured.RestAssured.given;
 import static io.restassured.RestAssured.when;
 import static org.hamcrest.Matchers.emptyString;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 
 class ItemControllerIntegrationTest extends AbstractIntegrationTest {
 
     private final ObjectWriter objectWriter = new ObjectMapper().writer();
 
+    @Autowired
+    private StatementStatistics statistics;
+
     @Test
     void shouldGetItem() throws JsonProcessingException {
         when()
@@ -26,6 +36,108 @@ class ItemControllerIntegrationTest extends AbstractIntegrationTest {
                 .body(equalTo(objectWriter.writeValueAsString(new ItemDTO().id(1L).name("Item A"))));
     }
 
+    @Test
+    void shouldNotReturnUnmodifiedItem() {
+        //given ETag of the current item version
+        var eTag = when()
+                .get("/items/1")
+                .then()
+                .statusCode(200)
+                .extract()
+                .header("ETag");
+
+        //when item is requested with the ETag
+        given()
+                .header("If-None-Match", eTag)
+                .when()
+                .get("/items/1")
+                .then()
+                //then Not Modified status is returned without the item
+                .statusCode(304)
+                .header("ETag", equalTo(eTag))
+                .body(emptyString());
+    }
+
+    @Test
+    void shouldReturnModifiedItem() throws JsonProcessingException {
+        //given existing item and its ETag
+        var item = new ItemDTO().id(4L).name("Item D");
+        given()
+                .contentType("application/json")
+                .body(item)
+                .when()
+                .put("/items/4")
+                .then()
+                .statusCode(200);
+        var eTag = when()
+                .get("/items/4")
+                .then()
+                .statusCode(200)
+                .extract()
+                .header("ETag");
+
+        //when item is updated
+        var updatedItem = new ItemDTO().id(4L).name("Item E");
+        given()
+                .contentType("application/json")
+                .body(updatedItem)
+                .when()
+                .put("/items/4")
+                .then()
+                .statusCode(200);
+
+        //then updated item is returned for the previous ETag
+        given()
+                .header("If-None-Match", eTag)
+                .when()
+                .get("/items/4")
+                .then()
+                .statusCode(200)
+                .header("ETag", not(equalTo(eTag)))
+                .body(equalTo(objectWriter.writeValueAsString(updatedItem)));
+
+        //cleanup
+        when()
+                .delete("/items/4")
+                .then()
+                .statusCode(200);
+    }
+
+    @Test
+    void shouldGetItems() throws JsonProcessingException {
+        var expectedItems = List.of(new ItemDTO().id(1L).name("Item A"), new ItemDTO().id(2L).name("Item B"), new ItemDTO().id(3L).name("Item C"));
+
+        when()
+                .get("/items")
+                .then()
+                .statusCode(200)
+                .contentType("application/json")
+                .header("ETag", not(emptyString()))
+                .assertThat()
+                .body(equalTo(objectWriter.writeValueAsString(expectedItems)));
+    }
+
+    @Test
+    void shouldNotReturnUnmodifiedItems() {
+        //given ETag of the current items version
+        var eTag = when()
+                .get("/items")
+                .then()
+                .statusCode(200)
+                .extract()
+                .header("ETag");
+
+        //when items are requested with the ETag
+        given()
+                .header("If-None-Match", eTag)
+                .when()
+                .get("/items")
+                .then()
+                //then Not Modified status is returned without the items
+                .statusCode(304)
+                .body(emptyString());
+    }
+
     @Test
     void shouldNotFindItem() {
         when()
@@ -36,6 +148,129 @@ class ItemControllerIntegrationTest extends AbstractIntegrationTest {
                 .body(emptyString());
     }
 
+    @Test
+    void shouldGetItemsPage() throws JsonProcessingException {
+        //when first page is requested
+        var nextCursor = when()
+                .get("/items?limit=2")
+                .then()
+                .statusCode(200)
+                .assertThat()
+                .body(equalTo(objectWriter.writeValueAsString(List.of(new ItemDTO().id(1L).name("Item A"), new ItemDTO().id(2L).name("Item B")))))
+                .header("X-Next-Cursor", equalTo("2"))
+                .extract()
+                .header("X-Next-Cursor");
+
+        //then next page can be requested using returned cursor
+        when()
+                .get("/items?afterId=" + nextCursor + "&limit=2")
+                .then()
+                .statusCode(200)
+                .assertThat()
+                .body(equalTo(objectWriter.writeValueAsString(List.of(new ItemDTO().id(3L).name("Item C")))))
+                .header("X-Next-Cursor", nullValue());
+    }
+
+    @Test
+    void shouldNotAggregateItemsToTagPage() {
+        //given statement statistics recorded from now on
+        statistics.reset();
+
+        //when page of items is requested
+        when()
+                .get("/items?afterId=1&limit=1")
+                .then()
+                .statusCode(200)
+                .header("ETag", not(emptyString()));
+
+        //then items are not aggregated to tag the page
+        assertFalse(statistics.summaries().isEmpty());
+        statistics.summaries().forEach(summary -> {
+            var sql = summary.sql().toLowerCase();
+            assertFalse(sql.contains("count(") || sql.contains("bit_xor_agg"), summary.sql());
+        });
+    }
+
+    @Test
+    void shouldNotAcceptInvalidPageSize() {
+        when()
+                .get("/items?limit=0")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    void shouldSearchItemsByPrefix() throws JsonProcessingException {
+        when()
+                .get("/items/search?prefix=item a")
+                .then()
+                .statusCode(200)
+                .assertThat()
+                .body(equalTo(objectWriter.writeValueAsString(List.of(new ItemDTO().id(1L).name("Item A")))));
+    }
+
+    @Test
+    void shouldSearchItemsWrittenAfterStartup() throws JsonProcessingException {
+        //given item
+        var item = new ItemDTO().id(4L).name("Searchable widget");
+
+        //when item is inserted
+        given()
+                .contentType("application/json")
+                .body(item)
+                .when()
+                .put("/items/4")
+                .then()
+                .statusCode(200);
+
+        //then item can be found by part of its name
+        when()
+                .get("/items/search?contains=WIDGET")
+                .then()
+                .statusCode(200)
+                .assertThat()
+                .body(equalTo(objectWriter.writeValueAsString(List.of(item))));
+
+        //and item is no longer found after it is deleted
+        when()
+                .delete("/items/4")
+                .then()
+                .statusCode(200);
+        when()
+                .get("/items/search?contains=widget")
+                .then()
+                .statusCode(200)
+                .assertThat()
+                .body(equalTo("[]"));
+    }
+
+    @Test
+    void shouldNotAcceptSearchWithoutQuery() {
+        when()
+                .get("/items/search")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    void shouldStreamItems() {
+        var expectedBody = """
+                {"id":1,"name":"Item A"}
+                {"id":2,"name":"Item B"}
+                {"id":3,"name":"Item C"}
+                """;
+
+        given()
+                .accept("application/x-ndjson")
+                .when()
+                .get("/items/stream")
+                .then()
+                .statusCode(200)
+                .contentType("application/x-ndjson")
+                .assertThat()
+                .body(equalTo(expectedBody));
+    }
+
     @Test
     void shouldCreateItemByPostRequest() throws JsonProcessingException {
         //given item
@@ -143,6 +378,75 @@ class ItemControllerIntegrationTest extends AbstractIntegrationTest {
                 .statusCode(200);
     }
 
+    @Test
+    void shouldUpdateItemOnlyWhenIfMatchIsCurrent() throws JsonProcessingException {
+        //given existing item and its ETag
+        given()
+                .contentType("application/json")
+                .body(new ItemDTO().id(4L).name("Item D"))
+                .when()
+                .put("/items/4")
+                .then()
+                .statusCode(200);
+        var eTag = when()
+                .get("/items/4")
+                .then()
+                .statusCode(200)
+                .extract()
+                .header("ETag");
+
+        //when item is updated with If-Match of its current version
+        var updatedItem = new ItemDTO().id(4L).name("Item E");
+        given()
+                .contentType("application/json")
+                .header("If-Match", eTag)
+                .body(updatedItem)
+                .when()
+                .put("/items/4")
+                .then()
+                .statusCode(200);
+
+        //then another update based on the same version is rejected
+        given()
+                .contentType("application/json")
+                .header("If-Match", eTag)
+                .body(new ItemDTO().id(4L).name("Item F"))
+                .when()
+                .put("/items/4")
+                .then()
+                .statusCode(412);
+
+        //and only the first update is applied
+        when()
+                .get("/items/4")
+                .then()
+                .statusCode(200)
+                .body(equalTo(objectWriter.writeValueAsString(updatedItem)));
+
+        //cleanup
+        when()
+                .delete("/items/4")
+                .then()
+                .statusCode(200);
+    }
+
+    @Test
+    void shouldNotCreateItemByPutRequestWithIfMatch() {
+        given()
+                .contentType("application/json")
+                .header("If-Match", "*")
+                .body(new ItemDTO().id(4L).name("Item D"))
+                .when()
+                .put("/items/4")
+                .then()
+                .statusCode(412);
+
+        when()
+                .get("/items/4")
+                .then()
+                .statusCode(404);
+    }
+
     @Test
     void shouldNotAcceptPutRequestWhenItemHasAmbiguousID() {
         given()
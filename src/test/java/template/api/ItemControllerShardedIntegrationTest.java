@@ -0,0 +1,71 @@
+package template.api;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import template.AbstractIntegrationTest;
+import template.api.model.ItemDTO;
+import template.repository.ItemStore;
+import template.repository.ShardedItemStore;
+
+import static io.restassured.RestAssured.given;
+import static io.restassured.RestAssured.when;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+@ActiveProfiles(ShardedItemStore.PROFILE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:layered-sharded-test",
+        "items.shards.urls=jdbc:h2:mem:layered-shard-test-0;DB_CLOSE_DELAY=-1,jdbc:h2:mem:layered-shard-test-1;DB_CLOSE_DELAY=-1"
+})
+class ItemControllerShardedIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private ItemStore store;
+
+    @Test
+    void shouldUseShardedStore() {
+        assertInstanceOf(ShardedItemStore.class, store);
+    }
+
+    @Test
+    void shouldPutItemsInBothShardsAndGetThemInIdOrder() {
+        //given items with IDs owned by different shards
+        for (var id : new long[]{102, 101}) {
+            given()
+                    .contentType("application/json")
+                    .body(new ItemDTO().id(id).name("Item " + id))
+                    .when()
+                    .put("/items/" + id)
+                    .then()
+                    .statusCode(200);
+        }
+
+        //then each item can be retrieved by ID
+        when()
+                .get("/items/101")
+                .then()
+                .statusCode(200)
+                .body("name", equalTo("Item 101"));
+
+        //and items of both shards are listed in ID order
+        when()
+                .get("/items?afterId=100")
+                .then()
+                .statusCode(200)
+                .body("id", contains(101, 102));
+
+        //and item can be deleted
+        when()
+                .delete("/items/102")
+                .then()
+                .statusCode(200);
+        when()
+                .get("/items/102")
+                .then()
+                .statusCode(404);
+    }
+
+}
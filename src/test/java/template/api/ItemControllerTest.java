@@ -1,23 +1,52 @@
 package template.api;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
-import org.modelmapper.ModelMapper;
+import org.mapstruct.factory.Mappers;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
 import template.api.model.ItemDTO;
 import template.service.Item;
 import template.service.ItemService;
+import template.service.ItemTransfer;
+import template.service.ItemWriteBehind;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.Predicate;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpStatus.ACCEPTED;
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
 import static org.springframework.http.HttpStatus.OK;
+import static org.springframework.http.HttpStatus.PRECONDITION_FAILED;
+import static org.springframework.http.HttpStatus.TOO_MANY_REQUESTS;
+import static org.springframework.http.MediaType.APPLICATION_CBOR;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON;
+import static template.api.ItemController.DELETED_COUNT_HEADER;
+import static template.api.ItemController.IMPORTED_COUNT_HEADER;
+import static template.api.ItemController.NEXT_CURSOR_HEADER;
+import static template.api.ItemController.TICKET_HEADER;
 import static template.util.TestItems.createTestItemDTOs;
 import static template.util.TestItems.createTestItems;
 
@@ -33,10 +62,10 @@ class ItemControllerTest {
         when(service.get(1L)).thenReturn(Optional.of(item));
 
         //and controller
-        var controller = new ItemController(service, new ModelMapper());
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), mock(ItemWriteBehind.class), mock(ItemTransfer.class), mock(ItemChangeStream.class));
 
         //when item is requested
-        var response = controller.getItem(1L);
+        var response = controller.getItem(1L, null);
 
         //then response containing expected item is returned
         assertEquals(controller.toDTO(item), response.getBody());
@@ -48,6 +77,50 @@ class ItemControllerTest {
         verify(service).get(1L);
     }
 
+    @Test
+    void shouldReturnItemETag() {
+        //given item
+        var item = Item.builder().id(1L).name("Item A").version(2L).build();
+
+        //and service
+        var service = mock(ItemService.class);
+        when(service.get(1L)).thenReturn(Optional.of(item));
+
+        //and controller
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), mock(ItemWriteBehind.class), mock(ItemTransfer.class), mock(ItemChangeStream.class));
+
+        //when item is requested
+        var response = controller.getItem(1L, null);
+
+        //then ETag based on item version is returned
+        assertEquals(String.format("\"2-%08x\"", "Item A".hashCode()), response.getHeaders().getETag());
+    }
+
+    @Test
+    void shouldNotReturnUnmodifiedItem() {
+        //given item
+        var item = Item.builder().id(1L).name("Item A").version(2L).build();
+
+        //and service
+        var service = mock(ItemService.class);
+        when(service.get(1L)).thenReturn(Optional.of(item));
+
+        //and controller
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), mock(ItemWriteBehind.class), mock(ItemTransfer.class), mock(ItemChangeStream.class));
+
+        //and ETag of the current item version
+        var eTag = controller.getItem(1L, null).getHeaders().getETag();
+
+        //when item is requested with the ETag
+        var response = controller.getItem(1L, "\"other\", " + eTag);
+
+        //then response contains no item
+        assertNull(response.getBody());
+
+        //and Not Modified status is returned
+        assertEquals(NOT_MODIFIED, response.getStatusCode());
+    }
+
     @Test
     void shouldNotFindItem() {
         //given service
@@ -55,10 +128,10 @@ class ItemControllerTest {
         when(service.get(1L)).thenReturn(Optional.empty());
 
         //and controller
-        var controller = new ItemController(service, new ModelMapper());
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), mock(ItemWriteBehind.class), mock(ItemTransfer.class), mock(ItemChangeStream.class));
 
         //when item is requested
-        var response = controller.getItem(1L);
+        var response = controller.getItem(1L, null);
 
         //then response contains no item
         assertNull(response.getBody());
@@ -74,22 +147,327 @@ class ItemControllerTest {
     void shouldGetItems() {
         //given service
         var service = mock(ItemService.class);
-        when(service.get()).thenReturn(createTestItems());
+        doAnswer(invocation -> {
+            ItemService.ValueConsumer action = invocation.getArgument(0);
+            createTestItems().forEach(item -> action.accept(item.getId(), item.getName()));
+            return null;
+        }).when(service).forEachValue(any());
 
         //and controller
-        var controller = new ItemController(service, new ModelMapper());
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), mock(ItemWriteBehind.class), mock(ItemTransfer.class), mock(ItemChangeStream.class));
 
         //when items are requested
-        var response = controller.getItems();
+        var response = controller.getItems(null, null, null);
+
+        //then response containing expected items is returned
+        assertEquals(createTestItemDTOs(), toDTOs(response.getBody()));
+
+        //and OK status is returned
+        assertEquals(OK, response.getStatusCode());
+
+        //and service was involved in retrieving the data
+        verify(service).forEachValue(any());
+    }
+
+    @Test
+    void shouldNotReturnUnmodifiedItems() {
+        //given service
+        var service = mock(ItemService.class);
+        when(service.getVersion()).thenReturn("abc-1");
+
+        //and controller
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), mock(ItemWriteBehind.class), mock(ItemTransfer.class), mock(ItemChangeStream.class));
+
+        //when items are requested with the ETag of the current version
+        var response = controller.getItems(null, null, "\"abc-1\"");
+
+        //then response contains no items
+        assertNull(response.getBody());
+
+        //and Not Modified status is returned
+        assertEquals(NOT_MODIFIED, response.getStatusCode());
+
+        //and items were not retrieved
+        verify(service, never()).forEachValue(any());
+    }
+
+    @Test
+    void shouldReturnModifiedItems() {
+        //given service
+        var service = mock(ItemService.class);
+        when(service.getVersion()).thenReturn("abc-2");
+        doAnswer(invocation -> {
+            ItemService.ValueConsumer action = invocation.getArgument(0);
+            createTestItems().forEach(item -> action.accept(item.getId(), item.getName()));
+            return null;
+        }).when(service).forEachValue(any());
+
+        //and controller
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), mock(ItemWriteBehind.class), mock(ItemTransfer.class), mock(ItemChangeStream.class));
+
+        //when items are requested with the ETag of the previous version
+        var response = controller.getItems(null, null, "\"abc-1\"");
 
         //then response containing expected items is returned
-        assertEquals(createTestItemDTOs(), response.getBody());
+        assertEquals(createTestItemDTOs(), toDTOs(response.getBody()));
+
+        //and ETag of the current version is returned
+        assertEquals("W/\"abc-2\"", response.getHeaders().getETag());
+    }
+
+    @Test
+    void shouldWriteItemsAsDTOsWouldBeWritten() throws IOException {
+        //given items
+        ItemStream items = action -> createTestItems().forEach(item -> action.accept(item.getId(), item.getName()));
+
+        //and converter writing JSON and CBOR
+        var objectMapper = new ObjectMapper();
+        var cborMapper = new CBORMapper();
+        var converter = new ItemStreamHttpMessageConverter(Map.of(APPLICATION_JSON, objectMapper, APPLICATION_CBOR, cborMapper));
+
+        //when items are written in both formats
+        var json = new MockHttpOutputMessage();
+        converter.write(items, APPLICATION_JSON, json);
+        var cbor = new MockHttpOutputMessage();
+        converter.write(items, APPLICATION_CBOR, cbor);
+
+        //then JSON body is the same as body written from DTOs
+        assertEquals(objectMapper.writeValueAsString(createTestItemDTOs()), json.getBodyAsString());
+
+        //and CBOR body is read back as the same DTOs
+        assertEquals(createTestItemDTOs(), List.of(cborMapper.readValue(cbor.getBodyAsBytes(), ItemDTO[].class)));
+    }
+
+    @Test
+    void shouldGetItemsPage() {
+        //given service
+        var service = mock(ItemService.class);
+        when(service.get(null, 2)).thenReturn(createTestItems().subList(0, 2));
+
+        //and controller
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), mock(ItemWriteBehind.class), mock(ItemTransfer.class), mock(ItemChangeStream.class));
+
+        //when first page of items is requested
+        var response = controller.getItems(null, 2, null);
+
+        //then response containing items from the first page is returned
+        assertEquals(createTestItemDTOs().subList(0, 2), toDTOs(response.getBody()));
+
+        //and cursor pointing to the next page is returned
+        assertEquals(List.of("2"), response.getHeaders().get(NEXT_CURSOR_HEADER));
 
         //and OK status is returned
         assertEquals(OK, response.getStatusCode());
 
         //and service was involved in retrieving the data
-        verify(service).get();
+        verify(service).get(null, 2);
+    }
+
+    @Test
+    void shouldGetLastItemsPage() {
+        //given service
+        var service = mock(ItemService.class);
+        when(service.get(2L, 2)).thenReturn(createTestItems().subList(2, 3));
+
+        //and controller
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), mock(ItemWriteBehind.class), mock(ItemTransfer.class), mock(ItemChangeStream.class));
+
+        //when last page of items is requested
+        var response = controller.getItems(2L, 2, null);
+
+        //then response containing items from the last page is returned
+        assertEquals(createTestItemDTOs().subList(2, 3), toDTOs(response.getBody()));
+
+        //and no cursor is returned
+        assertFalse(response.getHeaders().containsKey(NEXT_CURSOR_HEADER));
+
+        //and OK status is returned
+        assertEquals(OK, response.getStatusCode());
+    }
+
+    @Test
+    void shouldNotAcceptInvalidPageSize() {
+        //given service
+        var service = mock(ItemService.class);
+
+        //and controller
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), mock(ItemWriteBehind.class), mock(ItemTransfer.class), mock(ItemChangeStream.class));
+
+        //when page exceeding maximum size is requested
+        var response = controller.getItems(null, ItemController.MAX_PAGE_SIZE + 1, null);
+
+        //then Bad Request status is returned
+        assertEquals(BAD_REQUEST, response.getStatusCode());
+
+        //and service was not involved in retrieving the data
+        verify(service, never()).get(any(), anyInt());
+    }
+
+    @Test
+    void shouldSearchItems() {
+        //given service
+        var service = mock(ItemService.class);
+        when(service.searchContaining("item", null, 2)).thenReturn(createTestItems().subList(0, 2));
+
+        //and controller
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), mock(ItemWriteBehind.class), mock(ItemTransfer.class), mock(ItemChangeStream.class));
+
+        //when items containing text are requested
+        var response = controller.searchItems(null, "item", null, 2);
+
+        //then response containing found items is returned
+        assertEquals(createTestItemDTOs().subList(0, 2), response.getBody());
+
+        //and cursor pointing to the next page is returned
+        assertEquals(List.of("2"), response.getHeaders().get(NEXT_CURSOR_HEADER));
+
+        //and OK status is returned
+        assertEquals(OK, response.getStatusCode());
+    }
+
+    @Test
+    void shouldNotAcceptSearchWithBothPrefixAndText() {
+        //given service
+        var service = mock(ItemService.class);
+
+        //and controller
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), mock(ItemWriteBehind.class), mock(ItemTransfer.class), mock(ItemChangeStream.class));
+
+        //when search with both prefix and text is requested
+        var response = controller.searchItems("item", "item", null, null);
+
+        //then Bad Request status is returned
+        assertEquals(BAD_REQUEST, response.getStatusCode());
+
+        //and search without prefix and text is not accepted either
+        assertEquals(BAD_REQUEST, controller.searchItems(null, null, null, null).getStatusCode());
+
+        //and service was not involved in searching
+        verify(service, never()).searchByPrefix(any(), any(), anyInt());
+        verify(service, never()).searchContaining(any(), any(), anyInt());
+    }
+
+    @Test
+    void shouldStreamItems() throws IOException {
+        //given service
+        var service = mock(ItemService.class);
+        doAnswer(invocation -> {
+            ItemService.ValueConsumer action = invocation.getArgument(0);
+            createTestItems().forEach(item -> action.accept(item.getId(), item.getName()));
+            return null;
+        }).when(service).forEachValue(any());
+
+        //and controller
+        var transfer = new ItemTransfer(service, new SimpleMeterRegistry());
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), mock(ItemWriteBehind.class), transfer, mock(ItemChangeStream.class));
+
+        //when items are streamed
+        var response = controller.streamItems();
+        var outputMessage = new MockHttpOutputMessage();
+        createItemStreamConverter().write(response.getBody(), APPLICATION_NDJSON, outputMessage);
+
+        //then each item is written as a separate JSON line
+        var expectedBody = """
+                {"id":1,"name":"Item A"}
+                {"id":2,"name":"Item B"}
+                {"id":3,"name":"Item C"}
+                """;
+        assertEquals(expectedBody, outputMessage.getBodyAsString());
+
+        //and service was involved in retrieving the data
+        verify(service).forEachValue(any());
+    }
+
+    @Test
+    void shouldExportItemsAsCsv() throws IOException {
+        //given service
+        var service = mock(ItemService.class);
+        doAnswer(invocation -> {
+            ItemService.ValueConsumer action = invocation.getArgument(0);
+            createTestItems().forEach(item -> action.accept(item.getId(), item.getName()));
+            return null;
+        }).when(service).forEachValue(any());
+
+        //and controller
+        var transfer = new ItemTransfer(service, new SimpleMeterRegistry());
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), mock(ItemWriteBehind.class), transfer, mock(ItemChangeStream.class));
+
+        //when items are exported as CSV
+        var response = controller.exportItems();
+        var outputMessage = new MockHttpOutputMessage();
+        createItemStreamConverter().write(response.getBody(), ItemController.TEXT_CSV, outputMessage);
+
+        //then header and each item are written as CSV records
+        assertEquals("id,name\r\n1,Item A\r\n2,Item B\r\n3,Item C\r\n", outputMessage.getBodyAsString());
+
+        //and CSV content type is returned
+        assertEquals(ItemController.TEXT_CSV, outputMessage.getHeaders().getContentType());
+    }
+
+    @Test
+    void shouldImportItemsFromNdjson() throws IOException {
+        //given service
+        var service = mock(ItemService.class);
+
+        //and controller
+        var transfer = new ItemTransfer(service, new SimpleMeterRegistry());
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), mock(ItemWriteBehind.class), transfer, mock(ItemChangeStream.class));
+
+        //when items with and without IDs are imported
+        var body = """
+                {"id":1,"name":"Item A"}
+                {"name":"Item B"}
+                """;
+        var response = controller.importItems(readItemUpload(APPLICATION_NDJSON, body));
+
+        //then items without IDs are created
+        verify(service).createAll(List.of(Item.builder().name("Item B").build()));
+
+        //and items with IDs are upserted
+        verify(service).upsertAll(List.of(Item.builder().id(1L).name("Item A").build()));
+
+        //and number of imported items is returned
+        assertEquals(List.of("2"), response.getHeaders().get(IMPORTED_COUNT_HEADER));
+        assertEquals(OK, response.getStatusCode());
+    }
+
+    @Test
+    void shouldNotAcceptInvalidImportedItem() throws IOException {
+        //given service
+        var service = mock(ItemService.class);
+
+        //and controller
+        var transfer = new ItemTransfer(service, new SimpleMeterRegistry());
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), mock(ItemWriteBehind.class), transfer, mock(ItemChangeStream.class));
+
+        //when CSV with invalid ID is imported
+        var response = controller.importItems(readItemUpload(ItemController.TEXT_CSV, "id,name\n1,Item A\nx,Item B\n"));
+
+        //then Bad Request status is returned
+        assertEquals(BAD_REQUEST, response.getStatusCode());
+
+        //and no items were imported
+        assertEquals(List.of("0"), response.getHeaders().get(IMPORTED_COUNT_HEADER));
+        verify(service, never()).upsertAll(any());
+    }
+
+    @Test
+    void shouldNotAcceptMalformedImportedJson() throws IOException {
+        //given service
+        var service = mock(ItemService.class);
+
+        //and controller
+        var transfer = new ItemTransfer(service, new SimpleMeterRegistry());
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), mock(ItemWriteBehind.class), transfer, mock(ItemChangeStream.class));
+
+        //when body that is not JSON is imported
+        var response = controller.importItems(readItemUpload(APPLICATION_NDJSON, "not json"));
+
+        //then Bad Request status is returned
+        assertEquals(BAD_REQUEST, response.getStatusCode());
+
+        //and no items were imported
+        assertEquals(List.of("0"), response.getHeaders().get(IMPORTED_COUNT_HEADER));
     }
 
     @Test
@@ -101,7 +479,7 @@ class ItemControllerTest {
         var service = mock(ItemService.class);
 
         //and controller
-        var controller = new ItemController(service, new ModelMapper());
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), mock(ItemWriteBehind.class), mock(ItemTransfer.class), mock(ItemChangeStream.class));
 
         //when POST request with item is handled
         var response = controller.postItem(item);
@@ -122,7 +500,7 @@ class ItemControllerTest {
         var service = mock(ItemService.class);
 
         //and controller
-        var controller = new ItemController(service, new ModelMapper());
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), mock(ItemWriteBehind.class), mock(ItemTransfer.class), mock(ItemChangeStream.class));
 
         //when POST request with item containing ID is received
         var response = controller.postItem(item);
@@ -143,10 +521,10 @@ class ItemControllerTest {
         var service = mock(ItemService.class);
 
         //and controller
-        var controller = new ItemController(service, new ModelMapper());
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), mock(ItemWriteBehind.class), mock(ItemTransfer.class), mock(ItemChangeStream.class));
 
         //when item is put
-        var response = controller.putItem(1L, item);
+        var response = controller.putItem(1L, null, item);
 
         //then OK status is returned
         assertEquals(OK, response.getStatusCode());
@@ -155,6 +533,253 @@ class ItemControllerTest {
         verify(service).upsert(1L, controller.toDomainObject(item));
     }
 
+    @Test
+    void shouldPutItemMatchingVersion() {
+        //given item
+        var item = new ItemDTO().name("Item A1");
+
+        //and service holding the item in version 3
+        var service = createServiceReplacing(Item.builder().id(1L).name("Item A").version(3L).build());
+
+        //and enabled asynchronous writes
+        var writeBehind = mock(ItemWriteBehind.class);
+        when(writeBehind.isEnabled()).thenReturn(true);
+
+        //and controller
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), writeBehind, mock(ItemTransfer.class), mock(ItemChangeStream.class));
+
+        //when item is put with If-Match listing an outdated and the current version
+        var eTag = String.format("\"3-%08x\"", "Item A".hashCode());
+        var response = controller.putItem(1L, "\"2-0000abcd\", " + eTag, item);
+
+        //then OK status is returned
+        assertEquals(OK, response.getStatusCode());
+
+        //and item was replaced by the request thread instead of being queued
+        verify(service).replaceIf(eq(1L), eq(controller.toDomainObject(item)), any());
+        verify(writeBehind, never()).submitUpsert(any(), any());
+    }
+
+    @Test
+    void shouldReturnPreconditionFailedWhenVersionDoesNotMatch() {
+        //given item
+        var item = new ItemDTO().name("Item A1");
+
+        //and service holding the item in version 3
+        var service = createServiceReplacing(Item.builder().id(1L).name("Item A").version(3L).build());
+
+        //and controller
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), mock(ItemWriteBehind.class), mock(ItemTransfer.class), mock(ItemChangeStream.class));
+
+        //when item is put with If-Match of outdated version
+        var response = controller.putItem(1L, String.format("\"2-%08x\"", "Item A".hashCode()), item);
+
+        //then Precondition Failed status is returned
+        assertEquals(PRECONDITION_FAILED, response.getStatusCode());
+
+        //and item was not upserted
+        verify(service, never()).upsert(any(), any());
+    }
+
+    @Test
+    void shouldReturnPreconditionFailedWhenItemWasRecreated() {
+        //given item
+        var item = new ItemDTO().name("Item A1");
+
+        //and service holding another item recreated under the same ID, starting again from version 0
+        var service = createServiceReplacing(Item.builder().id(1L).name("Item B").version(0L).build());
+
+        //and controller
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), mock(ItemWriteBehind.class), mock(ItemTransfer.class), mock(ItemChangeStream.class));
+
+        //when item is put with If-Match of the removed item in the same version
+        var response = controller.putItem(1L, String.format("\"0-%08x\"", "Item A".hashCode()), item);
+
+        //then Precondition Failed status is returned
+        assertEquals(PRECONDITION_FAILED, response.getStatusCode());
+    }
+
+    @Test
+    void shouldReturnPreconditionFailedForWeakTag() {
+        //given item
+        var item = new ItemDTO().name("Item A1");
+
+        //and service holding the item in version 3
+        var service = createServiceReplacing(Item.builder().id(1L).name("Item A").version(3L).build());
+
+        //and controller
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), mock(ItemWriteBehind.class), mock(ItemTransfer.class), mock(ItemChangeStream.class));
+
+        //when item is put with If-Match of the current version marked as weak
+        var response = controller.putItem(1L, String.format("W/\"3-%08x\"", "Item A".hashCode()), item);
+
+        //then Precondition Failed status is returned, as If-Match uses strong comparison
+        assertEquals(PRECONDITION_FAILED, response.getStatusCode());
+
+        //and item was not replaced
+        verify(service, never()).replaceIf(any(), any(), any());
+    }
+
+    @Test
+    void shouldPutExistingItemWhenAnyVersionMatches() {
+        //given item
+        var item = new ItemDTO().name("Item A");
+
+        //and service
+        var service = mock(ItemService.class);
+        when(service.replace(1L, Item.builder().name("Item A").build(), null)).thenReturn(true);
+
+        //and controller
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), mock(ItemWriteBehind.class), mock(ItemTransfer.class), mock(ItemChangeStream.class));
+
+        //when item is put with If-Match: *
+        var response = controller.putItem(1L, "*", item);
+
+        //then OK status is returned
+        assertEquals(OK, response.getStatusCode());
+
+        //and item was replaced regardless of its version
+        verify(service).replace(1L, controller.toDomainObject(item), null);
+    }
+
+    @Test
+    void shouldAcceptPostRequestForAsynchronousWrite() {
+        //given item
+        var item = new ItemDTO().name("Item A");
+
+        //and service
+        var service = mock(ItemService.class);
+
+        //and enabled asynchronous writes
+        var writeBehind = mock(ItemWriteBehind.class);
+        when(writeBehind.isEnabled()).thenReturn(true);
+        when(writeBehind.submitCreate(any())).thenReturn(OptionalLong.of(7L));
+
+        //and controller
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), writeBehind, mock(ItemTransfer.class), mock(ItemChangeStream.class));
+
+        //when POST request with item is handled
+        var response = controller.postItem(item);
+
+        //then Accepted status is returned with write ticket
+        assertEquals(ACCEPTED, response.getStatusCode());
+        assertEquals("7", response.getHeaders().getFirst(TICKET_HEADER));
+
+        //and item was queued instead of being saved by the request thread
+        verify(writeBehind).submitCreate(controller.toDomainObject(item));
+        verify(service, never()).create(any());
+    }
+
+    @Test
+    void shouldRejectPutRequestWhenWriteQueueIsFull() {
+        //given item
+        var item = new ItemDTO().name("Item A");
+
+        //and service
+        var service = mock(ItemService.class);
+
+        //and enabled asynchronous writes with full queue
+        var writeBehind = mock(ItemWriteBehind.class);
+        when(writeBehind.isEnabled()).thenReturn(true);
+        when(writeBehind.submitUpsert(any(), any())).thenReturn(OptionalLong.empty());
+
+        //and controller
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), writeBehind, mock(ItemTransfer.class), mock(ItemChangeStream.class));
+
+        //when item is put
+        var response = controller.putItem(1L, null, item);
+
+        //then Too Many Requests status is returned
+        assertEquals(TOO_MANY_REQUESTS, response.getStatusCode());
+
+        //and service was not involved in saving data
+        verify(service, never()).upsert(any(), any());
+    }
+
+    @Test
+    void shouldPostItems() {
+        //given items
+        var items = List.of(new ItemDTO().name("Item A"), new ItemDTO().name("Item B"));
+
+        //and service
+        var service = mock(ItemService.class);
+
+        //and controller
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), mock(ItemWriteBehind.class), mock(ItemTransfer.class), mock(ItemChangeStream.class));
+
+        //when POST request with items is handled
+        var response = controller.postItems(items);
+
+        //then OK status is returned
+        assertEquals(OK, response.getStatusCode());
+
+        //and service was involved in saving the data
+        verify(service).createAll(items.stream().map(controller::toDomainObject).toList());
+    }
+
+    @Test
+    void shouldNotAcceptPostItemsRequestWhenItemHasID() {
+        //given items
+        var items = List.of(new ItemDTO().name("Item A"), new ItemDTO().id(2L).name("Item B"));
+
+        //and service
+        var service = mock(ItemService.class);
+
+        //and controller
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), mock(ItemWriteBehind.class), mock(ItemTransfer.class), mock(ItemChangeStream.class));
+
+        //when POST request with item containing ID is received
+        var response = controller.postItems(items);
+
+        //then Bad Request status is returned
+        assertEquals(BAD_REQUEST, response.getStatusCode());
+
+        //and service was not involved in saving the data
+        verify(service, never()).createAll(any());
+    }
+
+    @Test
+    void shouldPutItems() {
+        //given items
+        var items = createTestItemDTOs();
+
+        //and service
+        var service = mock(ItemService.class);
+
+        //and controller
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), mock(ItemWriteBehind.class), mock(ItemTransfer.class), mock(ItemChangeStream.class));
+
+        //when PUT request with items is handled
+        var response = controller.putItems(items);
+
+        //then OK status is returned
+        assertEquals(OK, response.getStatusCode());
+
+        //and service was involved in saving the data
+        verify(service).upsertAll(createTestItems());
+    }
+
+    @Test
+    void shouldNotAcceptPutItemsRequestWhenItemHasNoID() {
+        //given items
+        var items = List.of(new ItemDTO().id(1L).name("Item A"), new ItemDTO().name("Item B"));
+
+        //and service
+        var service = mock(ItemService.class);
+
+        //and controller
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), mock(ItemWriteBehind.class), mock(ItemTransfer.class), mock(ItemChangeStream.class));
+
+        //when PUT request with item without ID is received
+        var response = controller.putItems(items);
+
+        //then Bad Request status is returned
+        assertEquals(BAD_REQUEST, response.getStatusCode());
+
+        //and service was not involved in saving the data
+        verify(service, never()).upsertAll(any());
+    }
+
     @Test
     void shouldDeleteItem() {
         //given item
@@ -162,10 +787,10 @@ class ItemControllerTest {
 
         //and service
         var service = mock(ItemService.class);
-        when(service.get(item.getId())).thenReturn(Optional.of(item));
+        when(service.delete(item.getId())).thenReturn(true);
 
         //and controller
-        var controller = new ItemController(service, new ModelMapper());
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), mock(ItemWriteBehind.class), mock(ItemTransfer.class), mock(ItemChangeStream.class));
 
         //when DELETE request is handled
         var response = controller.deleteItem(item.getId());
@@ -175,6 +800,9 @@ class ItemControllerTest {
 
         //and service was involved in deleting the data
         verify(service).delete(item.getId());
+
+        //and item was not loaded before deleting
+        verify(service, never()).get(any());
     }
 
     @Test
@@ -183,7 +811,7 @@ class ItemControllerTest {
         var service = mock(ItemService.class);
 
         //and controller
-        var controller = new ItemController(service, new ModelMapper());
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), mock(ItemWriteBehind.class), mock(ItemTransfer.class), mock(ItemChangeStream.class));
 
         //and item id
         var itemId = 1L;
@@ -194,8 +822,71 @@ class ItemControllerTest {
         //then Not Found status is returned
         assertEquals(NOT_FOUND, response.getStatusCode());
 
+        //and service was asked to delete the item only once
+        verify(service).delete(itemId);
+    }
+
+    @Test
+    void shouldDeleteItems() {
+        //given IDs of items
+        var ids = List.of(1L, 2L, 100L);
+
+        //and service deleting two of them
+        var service = mock(ItemService.class);
+        when(service.deleteAll(ids)).thenReturn(2);
+
+        //and controller
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), mock(ItemWriteBehind.class), mock(ItemTransfer.class), mock(ItemChangeStream.class));
+
+        //when DELETE request is handled
+        var response = controller.deleteItems(ids);
+
+        //then OK status is returned
+        assertEquals(OK, response.getStatusCode());
+
+        //and number of deleted items is returned
+        assertEquals("2", response.getHeaders().getFirst(DELETED_COUNT_HEADER));
+    }
+
+    @Test
+    void shouldNotAcceptDeleteRequestWithoutIds() {
+        //given service
+        var service = mock(ItemService.class);
+
+        //and controller
+        var controller = new ItemController(service, Mappers.getMapper(ItemDTOMapper.class), mock(ItemWriteBehind.class), mock(ItemTransfer.class), mock(ItemChangeStream.class));
+
+        //when DELETE request without IDs is handled
+        var response = controller.deleteItems(List.of());
+
+        //then Bad Request status is returned
+        assertEquals(BAD_REQUEST, response.getStatusCode());
+
         //and service was not involved in deleting the data
-        verify(service, never()).delete(any());
+        verify(service, never()).deleteAll(any());
+    }
+
+    private ItemStreamHttpMessageConverter createItemStreamConverter() {
+        return new ItemStreamHttpMessageConverter(Map.of(APPLICATION_NDJSON, new ObjectMapper()));
+    }
+
+    private static List<ItemDTO> toDTOs(ItemStream items) {
+        var itemDTOs = new ArrayList<ItemDTO>();
+        items.forEach((id, name) -> itemDTOs.add(new ItemDTO().id(id).name(name)));
+        return itemDTOs;
+    }
+
+    private ItemUpload readItemUpload(MediaType contentType, String body) throws IOException {
+        var inputMessage = new MockHttpInputMessage(body.getBytes());
+        inputMessage.getHeaders().setContentType(contentType);
+        return new ItemUploadHttpMessageConverter(new ObjectMapper()).read(ItemUpload.class, inputMessage);
+    }
+
+    private ItemService createServiceReplacing(Item current) {
+        var service = mock(ItemService.class);
+        when(service.replaceIf(eq(current.getId()), any(), any()))
+                .thenAnswer(invocation -> invocation.getArgument(2, Predicate.class).test(current));
+        return service;
     }
 
 }
@@ -0,0 +1,155 @@
+package template.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.google.common.collect.Lists;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.TestPropertySource;
+import template.AbstractIntegrationTest;
+import template.api.model.ItemDTO;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static io.restassured.RestAssured.given;
+import static io.restassured.RestAssured.when;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:layered-transfer-test")
+class ItemControllerTransferIntegrationTest extends AbstractIntegrationTest {
+
+    private final ObjectWriter objectWriter = new ObjectMapper().writer();
+
+    @Test
+    void shouldImportItemsFromCsv() throws JsonProcessingException {
+        //given CSV with item to upsert and item to create
+        var csv = "id,name\n101,\"Item, imported\"\n,Item F\n";
+
+        //when CSV is imported
+        given()
+                .contentType("text/csv")
+                .body(csv)
+                .when()
+                .post("/items/import")
+                .then()
+                .statusCode(200)
+                .header("X-Imported-Count", equalTo("2"));
+
+        //then items can be retrieved
+        when()
+                .get("/items/101")
+                .then()
+                .statusCode(200)
+                .assertThat()
+                .body(equalTo(objectWriter.writeValueAsString(new ItemDTO().id(101L).name("Item, imported"))));
+        when()
+                .get("/items/search?prefix=Item F")
+                .then()
+                .statusCode(200)
+                .assertThat()
+                .body("name[0]", equalTo("Item F"));
+
+        //cleanup
+        var createdId = when().get("/items/search?prefix=Item F").then().extract().jsonPath().getLong("id[0]");
+        when()
+                .delete("/items?ids=101," + createdId)
+                .then()
+                .statusCode(200);
+    }
+
+    @Test
+    void shouldImportExactlyItemsPrecedingInvalidRecord() {
+        //given CSV mixing items to upsert and items to create, with an invalid record after the first 1500
+        var csv = new StringBuilder("id,name\n");
+        for (var i = 0; i < 1500; i++) {
+            csv.append(i % 3 == 0 ? String.valueOf(10_000 + i) : "").append(",Imported ").append(i).append('\n');
+        }
+        csv.append("10,Item X,invalid\n,Imported after invalid\n");
+
+        //when CSV is imported
+        //then import fails reporting exactly the preceding items
+        given()
+                .contentType("text/csv")
+                .body(csv.toString())
+                .when()
+                .post("/items/import")
+                .then()
+                .statusCode(400)
+                .header("X-Imported-Count", equalTo("1500"));
+
+        //and exactly the preceding items are stored
+        var names = new ArrayList<String>();
+        var ids = new ArrayList<Long>();
+        given()
+                .accept("text/csv")
+                .when()
+                .get("/items/export")
+                .then()
+                .statusCode(200)
+                .extract()
+                .asString()
+                .lines()
+                .map(line -> line.split(",", 2))
+                .filter(record -> record[1].startsWith("Imported "))
+                .forEach(record -> {
+                    ids.add(Long.parseLong(record[0]));
+                    names.add(record[1]);
+                });
+        var expected = IntStream.range(0, 1500).mapToObj(i -> "Imported " + i).collect(Collectors.toSet());
+        assertEquals(1500, names.size());
+        assertEquals(expected, new HashSet<>(names));
+
+        //cleanup, in parts keeping the request line short
+        Lists.partition(ids, 200).forEach(part -> given()
+                .queryParam("ids", part.stream().map(String::valueOf).collect(Collectors.joining(",")))
+                .when()
+                .delete("/items")
+                .then()
+                .statusCode(200));
+    }
+
+    @Test
+    void shouldNotAcceptInvalidNdjson() {
+        given()
+                .contentType("application/x-ndjson")
+                .body("{\"id\":102,\"name\":\"Item G\"}\n{\"id\":\n")
+                .when()
+                .post("/items/import")
+                .then()
+                .statusCode(400)
+                .header("X-Imported-Count", equalTo("0"));
+    }
+
+    @Test
+    void shouldExportItemsAsCsv() {
+        given()
+                .accept("text/csv")
+                .when()
+                .get("/items/export")
+                .then()
+                .statusCode(200)
+                .contentType("text/csv")
+                .assertThat()
+                .body(startsWith("id,name\r\n1,Item A\r\n2,Item B\r\n3,Item C\r\n"));
+    }
+
+    @Test
+    void shouldExportItemsAsNdjson() {
+        given()
+                .accept("application/x-ndjson")
+                .when()
+                .get("/items/export")
+                .then()
+                .statusCode(200)
+                .contentType("application/x-ndjson")
+                .assertThat()
+                .body(containsString("{\"id\":1,\"name\":\"Item A\"}\n"));
+    }
+
+}
@@ -0,0 +1,61 @@
+package template.api;
+
+import org.junit.jupiter.api.Test;
+import template.api.model.ItemDTO;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ItemCsvTest {
+
+    @Test
+    void shouldReadWrittenItems() throws IOException {
+        //given items with names that have to be quoted
+        var items = List.of(
+                new ItemDTO().id(1L).name("Item A"),
+                new ItemDTO().id(2L).name("Item \"B\", second"),
+                new ItemDTO().id(3L).name("Item\r\nC"));
+
+        //when items are written
+        var writer = new StringWriter();
+        ItemCsv.writeHeader(writer);
+        for (var item : items) {
+            ItemCsv.write(writer, item);
+        }
+
+        //then the same items are read back
+        var result = new ArrayList<ItemDTO>();
+        ItemCsv.read(new StringReader(writer.toString())).forEachRemaining(result::add);
+        assertEquals(items, result);
+    }
+
+    @Test
+    void shouldReadItemsWithoutHeaderAndIds() {
+        //given CSV without header and with empty ID column
+        var csv = ",Item A\n7,Item B";
+
+        //when items are read
+        var result = new ArrayList<ItemDTO>();
+        ItemCsv.read(new StringReader(csv)).forEachRemaining(result::add);
+
+        //then items are read with IDs where given
+        assertEquals(List.of(new ItemDTO().name("Item A"), new ItemDTO().id(7L).name("Item B")), result);
+    }
+
+    @Test
+    void shouldNotReadRecordWithUnexpectedColumns() {
+        //given CSV with record of three columns
+        var items = ItemCsv.read(new StringReader("1,Item A,extra\n"));
+
+        //when item is read
+        //then exception is thrown
+        assertThrows(IllegalArgumentException.class, items::next);
+    }
+
+}
@@ -0,0 +1,38 @@
+package template.api;
+
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import template.api.model.ItemDTO;
+import template.service.Item;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ItemDTOMapperTest {
+
+    private final ItemDTOMapper mapper = Mappers.getMapper(ItemDTOMapper.class);
+
+    @Test
+    void shouldMapItemToDTO() {
+        //given item
+        var item = Item.builder().id(1L).name("Item A").build();
+
+        //when item is mapped
+        var result = mapper.toDTO(item);
+
+        //then DTO with the same values is returned
+        assertEquals(new ItemDTO().id(1L).name("Item A"), result);
+    }
+
+    @Test
+    void shouldMapDTOToItem() {
+        //given DTO
+        var itemDTO = new ItemDTO().name("Item A");
+
+        //when DTO is mapped
+        var result = mapper.toDomainObject(itemDTO);
+
+        //then item with the same values is returned
+        assertEquals(Item.builder().name("Item A").build(), result);
+    }
+
+}
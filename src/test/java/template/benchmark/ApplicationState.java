@@ -0,0 +1,52 @@
+package template.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import template.Application;
+import template.repository.ItemEntity;
+import template.repository.ItemRepository;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+public class ApplicationState {
+
+    @Param("1000")
+    public int datasetSize;
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run("--spring.datasource.url=jdbc:h2:mem:layered-benchmark");
+
+        var items = IntStream.range(0, datasetSize).mapToObj(i -> ItemEntity.builder().name("Item " + i).build()).toList();
+        getBean(ItemRepository.class).createAll(items);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public long randomId() {
+        //seeded items take IDs following the ones from data-test.sql
+        return ThreadLocalRandom.current().nextLong(1, datasetSize + 4);
+    }
+
+}
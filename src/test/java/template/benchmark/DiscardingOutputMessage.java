@@ -0,0 +1,23 @@
+package template.benchmark;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+
+import java.io.OutputStream;
+
+//discards the body, so that only allocations of producing it are measured
+class DiscardingOutputMessage implements HttpOutputMessage {
+
+    private final HttpHeaders headers = new HttpHeaders();
+
+    @Override
+    public OutputStream getBody() {
+        return OutputStream.nullOutputStream();
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+
+}
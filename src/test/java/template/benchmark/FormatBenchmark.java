@@ -0,0 +1,89 @@
+package template.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import template.api.model.ItemDTO;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPOutputStream;
+
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class FormatBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private ObjectWriter writer;
+
+    private ObjectReader reader;
+
+    private List<ItemDTO> items;
+
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        var mapper = switch (format) {
+            case "cbor" -> new CBORMapper();
+            case "smile" -> new SmileMapper();
+            default -> new ObjectMapper();
+        };
+        writer = mapper.writer();
+        reader = mapper.readerForListOf(ItemDTO.class);
+        items = LongStream.range(0, size).mapToObj(id -> new ItemDTO().id(id).name("Item " + id)).toList();
+        payload = writer.writeValueAsBytes(items);
+
+        //payload size is reported next to the benchmark results, as JMH measures only time
+        System.out.printf("%n%s payload of %d items: %d bytes, %d bytes compressed with gzip%n", format, size, payload.length, gzip(payload).length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return writer.writeValueAsBytes(items);
+    }
+
+    @Benchmark
+    public List<ItemDTO> decode() throws IOException {
+        return reader.readValue(payload);
+    }
+
+    @Benchmark
+    public byte[] encodeAndCompress() throws IOException {
+        return gzip(writer.writeValueAsBytes(items));
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        var outputStream = new ByteArrayOutputStream(bytes.length / 2);
+        try (var gzipStream = new GZIPOutputStream(outputStream)) {
+            gzipStream.write(bytes);
+        }
+        return outputStream.toByteArray();
+    }
+
+}
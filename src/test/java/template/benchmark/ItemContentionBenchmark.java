@@ -0,0 +1,77 @@
+package template.benchmark;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.support.TransactionTemplate;
+import template.repository.ItemEntity;
+import template.repository.ItemRepository;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+//compares read-modify-write of items under a row lock with an optimistic compare-and-set of their version,
+//with all threads writing the same item or each thread writing its own one
+@Fork(1)
+@Threads(8)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ItemContentionBenchmark {
+
+    @Benchmark
+    public void pessimistic(ApplicationState state, WriterState writer) {
+        var repository = state.getBean(ItemRepository.class);
+        var entityManager = state.getBean(EntityManager.class);
+        state.getBean(TransactionTemplate.class).executeWithoutResult(status -> {
+            //row stays locked until commit, so writers of the same item wait for each other
+            var item = entityManager.find(ItemEntity.class, writer.id, LockModeType.PESSIMISTIC_WRITE);
+            repository.upsert(writer.id, ItemEntity.builder().id(writer.id).name("Item " + (item.getVersion() + 1)).build());
+        });
+    }
+
+    @Benchmark
+    public int optimistic(ApplicationState state, WriterState writer) {
+        var repository = state.getBean(ItemRepository.class);
+        var attempts = 0;
+        boolean replaced;
+        do {
+            //nothing is held between read and write, a conflicting write only costs a retry
+            var item = repository.findById(writer.id).orElseThrow();
+            var update = ItemEntity.builder().id(writer.id).name("Item " + (item.getVersion() + 1)).build();
+            replaced = repository.replace(writer.id, update, item.getVersion());
+            attempts++;
+        } while (!replaced);
+        return attempts;
+    }
+
+    @State(Scope.Thread)
+    public static class WriterState {
+
+        private static final AtomicLong NEXT_ID = new AtomicLong(1);
+
+        @Param({"same", "distinct"})
+        public String items;
+
+        private long id;
+
+        @Setup
+        public void setUp() {
+            id = items.equals("same") ? 1 : NEXT_ID.getAndIncrement();
+        }
+
+    }
+
+}
@@ -0,0 +1,50 @@
+package template.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+import template.api.ItemController;
+import template.api.ItemStreamHttpMessageConverter;
+import template.api.model.ItemDTO;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ItemControllerBenchmark {
+
+    @Benchmark
+    public ResponseEntity<ItemDTO> getItem(ApplicationState state) {
+        return state.getBean(ItemController.class).getItem(state.randomId(), null);
+    }
+
+    //items are only read while the body is written
+    @Benchmark
+    public void getItems(ApplicationState state) throws IOException {
+        var response = state.getBean(ItemController.class).getItems(null, null, null);
+        state.getBean(ItemStreamHttpMessageConverter.class).write(response.getBody(), APPLICATION_JSON, new DiscardingOutputMessage());
+    }
+
+    @Benchmark
+    public ResponseEntity<Void> postItem(ApplicationState state) {
+        return state.getBean(ItemController.class).postItem(new ItemDTO().name("Item"));
+    }
+
+    @Benchmark
+    public ResponseEntity<Void> putItem(ApplicationState state) {
+        var id = state.randomId();
+        return state.getBean(ItemController.class).putItem(id, null, new ItemDTO().id(id).name("Item"));
+    }
+
+}
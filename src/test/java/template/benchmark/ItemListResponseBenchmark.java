@@ -0,0 +1,44 @@
+package template.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import template.api.ItemController;
+import template.api.ItemDTOMapper;
+import template.api.ItemStreamHttpMessageConverter;
+import template.service.ItemService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+//run with -prof gc, gc.alloc.rate.norm tells the bytes allocated per request by each response path
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ItemListResponseBenchmark {
+
+    @Benchmark
+    public void dtoList(ApplicationState state) throws IOException {
+        //list of DTOs written like the Jackson message converter does
+        var mapper = state.getBean(ItemDTOMapper.class);
+        var itemDTOs = state.getBean(ItemService.class).get().stream().map(mapper::toDTO).toList();
+        state.getBean(ObjectMapper.class).writeValue(OutputStream.nullOutputStream(), itemDTOs);
+    }
+
+    @Benchmark
+    public void streamed(ApplicationState state) throws IOException {
+        var response = state.getBean(ItemController.class).getItems(null, null, null);
+        state.getBean(ItemStreamHttpMessageConverter.class).write(response.getBody(), APPLICATION_JSON, new DiscardingOutputMessage());
+    }
+
+}
@@ -0,0 +1,71 @@
+package template.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+import template.repository.ItemEntity;
+import template.repository.LogItemStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@Fork(value = 1, jvmArgs = "-Xmx8g")
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ItemLogRecoveryBenchmark {
+
+    private static final int REGION_SIZE = 64 * 1024 * 1024;
+
+    private static final int SEED_CHUNK_SIZE = 10_000;
+
+    @Param("10000000")
+    public int datasetSize;
+
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("item-log-benchmark");
+
+        //half of the items end up in the snapshot and the other half in the log tail replayed over it
+        var store = new LogItemStore(directory, REGION_SIZE, datasetSize / 2 + 1, false);
+        store.open();
+        for (int from = 0; from < datasetSize; from += SEED_CHUNK_SIZE) {
+            store.createAll(IntStream.range(from, Math.min(from + SEED_CHUNK_SIZE, datasetSize))
+                    .mapToObj(i -> ItemEntity.builder().name("Item " + i).build())
+                    .toList());
+        }
+        store.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public LogItemStore recover() throws Exception {
+        var store = new LogItemStore(directory, REGION_SIZE, Long.MAX_VALUE, false);
+        store.open();
+        store.close();
+        return store;
+    }
+
+}
@@ -0,0 +1,47 @@
+package template.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import template.repository.ItemEntity;
+import template.repository.ItemRepository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ItemRepositoryBenchmark {
+
+    @Benchmark
+    public Optional<ItemEntity> findById(ApplicationState state) {
+        return state.getBean(ItemRepository.class).findById(state.randomId());
+    }
+
+    @Benchmark
+    public List<ItemEntity> findAll(ApplicationState state) {
+        return state.getBean(ItemRepository.class).findAll();
+    }
+
+    @Benchmark
+    public ItemEntity create(ApplicationState state) {
+        var entity = ItemEntity.builder().name("Item").build();
+        state.getBean(ItemRepository.class).create(entity);
+        return entity;
+    }
+
+    @Benchmark
+    public void upsert(ApplicationState state) {
+        var id = state.randomId();
+        state.getBean(ItemRepository.class).upsert(id, ItemEntity.builder().id(id).name("Item").build());
+    }
+
+}
@@ -0,0 +1,92 @@
+package template.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import template.Application;
+import template.repository.ItemEntity;
+import template.repository.ItemJpaRepository;
+import template.service.Item;
+import template.service.ItemService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ItemSearchBenchmark {
+
+    private static final int SEED_CHUNK_SIZE = 10_000;
+
+    private static final int PAGE_SIZE = 100;
+
+    @Param("100000")
+    public int datasetSize;
+
+    //matches only a few seeded items, so that LIKE has to scan the whole table to fill a page
+    @Param("item 12345")
+    public String text;
+
+    private ConfigurableApplicationContext context;
+
+    private ItemService service;
+
+    private ItemJpaRepository jpaRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run("--spring.datasource.url=jdbc:h2:mem:layered-search-benchmark");
+        service = context.getBean(ItemService.class);
+        jpaRepository = context.getBean(ItemJpaRepository.class);
+
+        //seeded through the service, so that items are added to the name index
+        for (int from = 0; from < datasetSize; from += SEED_CHUNK_SIZE) {
+            service.createAll(IntStream.range(from, Math.min(from + SEED_CHUNK_SIZE, datasetSize))
+                    .mapToObj(i -> Item.builder().name("Item " + i).build())
+                    .toList());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Item> indexContains() {
+        return service.searchContaining(text, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Item> indexPrefix() {
+        return service.searchByPrefix(text, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<ItemEntity> likeContains() {
+        return jpaRepository.findByNameContaining(text, Long.MIN_VALUE, Limit.of(PAGE_SIZE));
+    }
+
+}
@@ -0,0 +1,99 @@
+package template.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import template.Application;
+import template.repository.InMemoryItemStore;
+import template.repository.ItemEntity;
+import template.repository.ItemStore;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ItemStoreBenchmark {
+
+    private static final int SEED_CHUNK_SIZE = 10_000;
+
+    @Param({"jpa", InMemoryItemStore.PROFILE})
+    public String store;
+
+    @Param("1000000")
+    public int datasetSize;
+
+    private ConfigurableApplicationContext context;
+
+    private ItemStore itemStore;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var builder = new SpringApplicationBuilder(Application.class).web(WebApplicationType.NONE).profiles("test");
+        if (store.equals(InMemoryItemStore.PROFILE)) {
+            builder.profiles(InMemoryItemStore.PROFILE);
+        }
+        context = builder.run("--spring.datasource.url=jdbc:h2:mem:layered-store-benchmark");
+        itemStore = context.getBean(ItemStore.class);
+
+        //heap used by the store is reported next to the benchmark results, as JMH measures only time and allocation rate
+        var heapBefore = usedHeap();
+        for (int from = 0; from < datasetSize; from += SEED_CHUNK_SIZE) {
+            itemStore.createAll(IntStream.range(from, Math.min(from + SEED_CHUNK_SIZE, datasetSize))
+                    .mapToObj(i -> ItemEntity.builder().name("Item " + i).build())
+                    .toList());
+        }
+        var bytesPerItem = (usedHeap() - heapBefore) / datasetSize;
+        System.out.printf("%n%s store heap footprint: %d bytes per item, %d MB per million items%n",
+                store, bytesPerItem, bytesPerItem * 1_000_000 / (1024 * 1024));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<ItemEntity> get() {
+        return itemStore.findById(randomId());
+    }
+
+    @Benchmark
+    public void put() {
+        var id = randomId();
+        itemStore.upsert(id, ItemEntity.builder().id(id).name("Item").build());
+    }
+
+    private long randomId() {
+        //test data takes the first IDs of the JPA store, so the range covers seeded items of both stores
+        return ThreadLocalRandom.current().nextLong(1, datasetSize + 1);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        var runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
@@ -0,0 +1,54 @@
+package template.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import template.repository.ItemEntity;
+import template.repository.ItemRepository;
+
+import java.util.concurrent.TimeUnit;
+
+//create throughput with 1 to 8 writers sharing the ID allocator, it grows with writers as long as IDs come from the current block
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ItemWriteScalingBenchmark {
+
+    @Benchmark
+    @Threads(1)
+    public ItemEntity create1(ApplicationState state) {
+        return create(state);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public ItemEntity create2(ApplicationState state) {
+        return create(state);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ItemEntity create4(ApplicationState state) {
+        return create(state);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public ItemEntity create8(ApplicationState state) {
+        return create(state);
+    }
+
+    private static ItemEntity create(ApplicationState state) {
+        var entity = ItemEntity.builder().name("Item").build();
+        state.getBean(ItemRepository.class).create(entity);
+        return entity;
+    }
+
+}
@@ -0,0 +1,60 @@
+package template.benchmark;
+
+import org.mapstruct.factory.Mappers;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import template.api.ItemDTOMapper;
+import template.api.model.ItemDTO;
+import template.repository.ItemEntity;
+import template.service.Item;
+import template.service.ItemEntityMapper;
+
+import java.util.concurrent.TimeUnit;
+
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+
+    private final ModelMapper modelMapper = new ModelMapper();
+
+    private final ItemEntityMapper entityMapper = Mappers.getMapper(ItemEntityMapper.class);
+
+    private final ItemDTOMapper dtoMapper = Mappers.getMapper(ItemDTOMapper.class);
+
+    private final ItemEntity entity = ItemEntity.builder().id(1L).name("Item A").build();
+
+    private final ItemDTO itemDTO = new ItemDTO().id(1L).name("Item A");
+
+    @Benchmark
+    public ItemDTO modelMapperEntityToDTO() {
+        return modelMapper.map(modelMapper.map(entity, Item.class), ItemDTO.class);
+    }
+
+    @Benchmark
+    public ItemDTO generatedMapperEntityToDTO() {
+        return dtoMapper.toDTO(entityMapper.toDomainObject(entity));
+    }
+
+    @Benchmark
+    public ItemEntity modelMapperDTOToEntity() {
+        return modelMapper.map(modelMapper.map(itemDTO, Item.class), ItemEntity.class);
+    }
+
+    @Benchmark
+    public ItemEntity generatedMapperDTOToEntity() {
+        return entityMapper.toEntity(dtoMapper.toDomainObject(itemDTO));
+    }
+
+}
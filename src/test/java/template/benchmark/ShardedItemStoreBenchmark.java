@@ -0,0 +1,80 @@
+package template.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import template.repository.ItemEntity;
+import template.repository.ShardedItemStore;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+//write throughput of the sharded store with all threads writing to one database or spread over several
+@Fork(1)
+@Threads(8)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ShardedItemStoreBenchmark {
+
+    @Benchmark
+    public ItemEntity create(StoreState state) {
+        var item = ItemEntity.builder().name("Item").build();
+        state.store.create(item);
+        return item;
+    }
+
+    @Benchmark
+    public void upsert(StoreState state) {
+        var id = ThreadLocalRandom.current().nextLong(1, 100_000);
+        state.store.upsert(id, ItemEntity.builder().id(id).name("Item " + id).build());
+    }
+
+    @State(Scope.Benchmark)
+    public static class StoreState {
+
+        @Param({"1", "2", "4", "8"})
+        public int shards;
+
+        private final List<HikariDataSource> pools = new ArrayList<>();
+
+        private ShardedItemStore store;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            var dataSources = new ArrayList<DataSource>();
+            for (int i = 0; i < shards; i++) {
+                var pool = new HikariDataSource();
+                pool.setJdbcUrl("jdbc:h2:mem:sharded-benchmark-" + i);
+                pool.setMaximumPoolSize(10);
+                pools.add(pool);
+                dataSources.add(pool);
+            }
+            store = new ShardedItemStore(dataSources);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            store.close();
+            pools.forEach(HikariDataSource::close);
+        }
+
+    }
+
+}
@@ -0,0 +1,223 @@
+package template.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import template.Application;
+import template.service.Item;
+import template.service.ItemService;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.springframework.http.HttpHeaders.ACCEPT;
+import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+//open-loop load test, requests are sent at a fixed rate regardless of how fast responses come back
+@Slf4j
+public class LoadTest {
+
+    private static final int SEED_CHUNK_SIZE = 1000;
+
+    private final LoadTestOptions options;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+
+    private final Map<Operation, Histogram> serviceTimes = new EnumMap<>(Operation.class);
+
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+
+    private final Operation[] operations;
+
+    private final int[] cumulativeRatios;
+
+    private String baseUrl;
+
+    private long minId;
+
+    private long maxId;
+
+    LoadTest(LoadTestOptions options) {
+        this.options = options;
+        for (var operation : Operation.values()) {
+            //auto-resizing histograms with 3 significant digits
+            latencies.put(operation, new ConcurrentHistogram(3));
+            serviceTimes.put(operation, new ConcurrentHistogram(3));
+            errors.put(operation, new LongAdder());
+        }
+
+        var weighted = options.ratios().entrySet().stream().filter(entry -> entry.getValue() > 0).toList();
+        operations = weighted.stream().map(Map.Entry::getKey).toArray(Operation[]::new);
+        cumulativeRatios = new int[weighted.size()];
+        var sum = 0;
+        for (int i = 0; i < weighted.size(); i++) {
+            sum += weighted.get(i).getValue();
+            cumulativeRatios[i] = sum;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        var options = LoadTestOptions.parse(args);
+        var applicationArgs = Stream.concat(
+                Stream.of("--server.port=0", "--spring.datasource.url=jdbc:h2:mem:layered-load-test"),
+                options.applicationArgs().stream()).toArray(String[]::new);
+
+        try (var context = new SpringApplicationBuilder(Application.class).profiles("test").run(applicationArgs)) {
+            var loadTest = new LoadTest(options);
+            loadTest.seed(context);
+            var report = loadTest.run();
+            loadTest.write(report);
+        }
+    }
+
+    void seed(ConfigurableApplicationContext context) {
+        var service = context.getBean(ItemService.class);
+        for (int from = 0; from < options.datasetSize(); from += SEED_CHUNK_SIZE) {
+            var items = IntStream.range(from, Math.min(from + SEED_CHUNK_SIZE, options.datasetSize()))
+                    .mapToObj(i -> Item.builder().name("Item " + i).build())
+                    .toList();
+            service.createAll(items);
+        }
+
+        var ids = service.get().stream().mapToLong(Item::getId).summaryStatistics();
+        minId = ids.getMin();
+        maxId = ids.getMax();
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        log.info("Seeded {} items with IDs {} to {}", ids.getCount(), minId, maxId);
+    }
+
+    LoadTestReport run() {
+        var interval = options.intervalNanos();
+        var total = options.totalRequests();
+        var next = new AtomicLong();
+        var start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        var measuredFrom = start + options.warmup().toNanos();
+
+        log.info("Sending {} requests at {}/s with {} connections", total, options.rate(), options.concurrency());
+        try (var executor = Executors.newFixedThreadPool(options.concurrency())) {
+            for (int i = 0; i < options.concurrency(); i++) {
+                executor.execute(() -> {
+                    for (long request = next.getAndIncrement(); request < total; request = next.getAndIncrement()) {
+                        send(start + request * interval, measuredFrom);
+                    }
+                });
+            }
+        }
+        var elapsed = (System.nanoTime() - measuredFrom) / 1e9;
+
+        var operationReports = new LinkedHashMap<String, LoadTestReport.OperationReport>();
+        var requests = 0L;
+        for (var operation : operations) {
+            var latency = latencies.get(operation);
+            requests += latency.getTotalCount();
+            operationReports.put(operation.toString(), new LoadTestReport.OperationReport(
+                    latency.getTotalCount(),
+                    errors.get(operation).sum(),
+                    LoadTestReport.Latency.of(latency),
+                    LoadTestReport.Latency.of(serviceTimes.get(operation))));
+        }
+        return new LoadTestReport(options, elapsed, requests, requests / elapsed, operationReports);
+    }
+
+    private void send(long intendedStart, long measuredFrom) {
+        for (var wait = intendedStart - System.nanoTime(); wait > 0; wait = intendedStart - System.nanoTime()) {
+            LockSupport.parkNanos(wait);
+        }
+
+        var operation = pickOperation();
+        var sentAt = System.nanoTime();
+        var succeeded = execute(operation);
+        var completedAt = System.nanoTime();
+        if (intendedStart < measuredFrom) {
+            return;
+        }
+
+        //latency is measured from the time the request was due, so that stalls are not hidden by requests held back
+        //behind them (coordinated omission), service time only from the time it was actually sent
+        latencies.get(operation).recordValue(completedAt - intendedStart);
+        serviceTimes.get(operation).recordValue(completedAt - sentAt);
+        if (!succeeded) {
+            errors.get(operation).increment();
+        }
+    }
+
+    private Operation pickOperation() {
+        var value = ThreadLocalRandom.current().nextInt(cumulativeRatios[cumulativeRatios.length - 1]);
+        for (int i = 0; i < cumulativeRatios.length; i++) {
+            if (value < cumulativeRatios[i]) {
+                return operations[i];
+            }
+        }
+        throw new IllegalStateException("Ratios do not cover " + value);
+    }
+
+    private boolean execute(Operation operation) {
+        var id = ThreadLocalRandom.current().nextLong(minId, maxId + 1);
+        var request = switch (operation) {
+            case GET_ITEM -> request("/items/" + id).GET();
+            case GET_ITEMS -> request("/items").GET();
+            case POST_ITEM -> request("/items").header(CONTENT_TYPE, APPLICATION_JSON_VALUE)
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"Load item\"}"));
+            case PUT_ITEM -> request("/items/" + id).header(CONTENT_TYPE, APPLICATION_JSON_VALUE)
+                    .PUT(HttpRequest.BodyPublishers.ofString("{\"id\":" + id + ",\"name\":\"Load item " + id + "\"}"));
+            case DELETE_ITEM -> request("/items/" + id).DELETE();
+        };
+
+        try {
+            var status = client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+            //items are deleted concurrently, so reads and deletes of missing items are expected
+            var notFoundExpected = operation == Operation.GET_ITEM || operation == Operation.DELETE_ITEM;
+            return (status >= 200 && status < 300) || (status == 404 && notFoundExpected);
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).header(ACCEPT, APPLICATION_JSON_VALUE);
+    }
+
+    private void write(LoadTestReport report) throws IOException {
+        var objectMapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .enable(SerializationFeature.WRITE_ENUMS_USING_TO_STRING)
+                .disable(SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS);
+
+        report.operations().forEach((operation, result) -> log.info("{}: {} requests, {} errors, p50 {} ms, p99 {} ms, p99.9 {} ms, max {} ms",
+                operation, result.count(), result.errors(), result.latency().p50(), result.latency().p99(),
+                result.latency().p999(), result.latency().max()));
+        log.info("Throughput {} requests/s", String.format("%.1f", report.throughput()));
+
+        var file = new File(options.report());
+        file.getAbsoluteFile().getParentFile().mkdirs();
+        objectMapper.writeValue(file, report);
+        log.info("Report written to {}", file.getAbsolutePath());
+    }
+
+}
@@ -0,0 +1,77 @@
+package template.load;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//options are passed as --name=value, options not listed here are passed on to the application
+record LoadTestOptions(
+        Map<Operation, Integer> ratios,
+        int concurrency,
+        int rate,
+        Duration warmup,
+        Duration duration,
+        int datasetSize,
+        String report,
+        List<String> applicationArgs) {
+
+    private static final String DEFAULT_RATIOS = "getItem:50,getItems:5,postItem:15,putItem:20,deleteItem:10";
+
+    static LoadTestOptions parse(String... args) {
+        var options = new HashMap<>(Map.of(
+                "ratios", DEFAULT_RATIOS,
+                "concurrency", "32",
+                "rate", "500",
+                "warmup", "10s",
+                "duration", "60s",
+                "dataset-size", "10000",
+                "report", "target/load-test-report.json"));
+        var applicationArgs = new ArrayList<String>();
+
+        for (var arg : args) {
+            var separator = arg.indexOf('=');
+            var name = arg.startsWith("--") && separator > 2 ? arg.substring(2, separator) : null;
+            if (name != null && options.containsKey(name)) {
+                options.put(name, arg.substring(separator + 1));
+            } else {
+                applicationArgs.add(arg);
+            }
+        }
+
+        return new LoadTestOptions(
+                parseRatios(options.get("ratios")),
+                Integer.parseInt(options.get("concurrency")),
+                Integer.parseInt(options.get("rate")),
+                parseDuration(options.get("warmup")),
+                parseDuration(options.get("duration")),
+                Integer.parseInt(options.get("dataset-size")),
+                options.get("report"),
+                List.copyOf(applicationArgs));
+    }
+
+    long intervalNanos() {
+        return Duration.ofSeconds(1).toNanos() / rate;
+    }
+
+    long totalRequests() {
+        return (warmup.plus(duration).toMillis() * rate) / 1000;
+    }
+
+    private static Map<Operation, Integer> parseRatios(String ratios) {
+        var parsed = new EnumMap<Operation, Integer>(Operation.class);
+        for (var ratio : ratios.split(",")) {
+            var parts = ratio.split(":");
+            parsed.put(Operation.of(parts[0].strip()), Integer.parseInt(parts[1].strip()));
+        }
+        return parsed;
+    }
+
+    private static Duration parseDuration(String duration) {
+        //accepts both 30s and ISO-8601 PT30S
+        return duration.startsWith("P") ? Duration.parse(duration) : Duration.parse("PT" + duration.toUpperCase());
+    }
+
+}
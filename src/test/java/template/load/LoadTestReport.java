@@ -0,0 +1,33 @@
+package template.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+
+//written as JSON, so that reports of runs against different versions can be diffed
+record LoadTestReport(
+        LoadTestOptions options,
+        double elapsedSeconds,
+        long requests,
+        double throughput,
+        Map<String, OperationReport> operations) {
+
+    record OperationReport(long count, long errors, Latency latency, Latency serviceTime) {
+    }
+
+    //all values in milliseconds
+    record Latency(double mean, double p50, double p90, double p99, double p999, double max) {
+
+        static Latency of(Histogram histogram) {
+            return new Latency(
+                    histogram.getMean() / 1e6,
+                    histogram.getValueAtPercentile(50) / 1e6,
+                    histogram.getValueAtPercentile(90) / 1e6,
+                    histogram.getValueAtPercentile(99) / 1e6,
+                    histogram.getValueAtPercentile(99.9) / 1e6,
+                    histogram.getMaxValue() / 1e6);
+        }
+
+    }
+
+}
@@ -0,0 +1,32 @@
+package template.load;
+
+import java.util.Arrays;
+
+//item endpoints driven by the load test, named after operations of ItemsApi
+enum Operation {
+
+    GET_ITEM("getItem"),
+    GET_ITEMS("getItems"),
+    POST_ITEM("postItem"),
+    PUT_ITEM("putItem"),
+    DELETE_ITEM("deleteItem");
+
+    private final String operationId;
+
+    Operation(String operationId) {
+        this.operationId = operationId;
+    }
+
+    @Override
+    public String toString() {
+        return operationId;
+    }
+
+    static Operation of(String operationId) {
+        return Arrays.stream(values())
+                .filter(operation -> operation.operationId.equals(operationId))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown operation: " + operationId));
+    }
+
+}
@@ -26,4 +26,69 @@ class ActuatorIntegrationTest extends AbstractIntegrationTest {
                 .body(containsString("{\"status\":\"UP\"}"));
     }
 
+    @Test
+    void shouldReturnCacheMetrics() {
+        when()
+                .get("/actuator/metrics/cache.gets?tag=cache:items")
+                .then()
+                .statusCode(200)
+                .body(containsString("\"name\":\"cache.gets\""));
+    }
+
+    @Test
+    void shouldReturnLayerMetricsFromPrometheusEndpoint() {
+        //given item that was requested
+        when()
+                .get("/items/1")
+                .then()
+                .statusCode(200);
+
+        //when Prometheus endpoint is scraped
+        var response = when().get("/actuator/prometheus");
+
+        //then layer timers and connection pool metrics are published as histograms
+        response.then()
+                .statusCode(200)
+                .body(containsString("items_controller_seconds_bucket{"))
+                .body(containsString("operation=\"get\""))
+                .body(containsString("items_mapper_seconds_count{"))
+                .body(containsString("hikaricp_connections_acquire_seconds_bucket{"));
+    }
+
+    @Test
+    void shouldTimeStreamingOfItems() {
+        //given items that were requested
+        when()
+                .get("/items")
+                .then()
+                .statusCode(200);
+
+        //when Prometheus endpoint is scraped
+        //then streaming of the items is timed, as it happens after the controller returns
+        when()
+                .get("/actuator/prometheus")
+                .then()
+                .statusCode(200)
+                .body(containsString("operation=\"getAll\""))
+                .body(containsString("operation=\"streamValues\""));
+    }
+
+    @Test
+    void shouldReturnStatementStatistics() {
+        //given item that was requested
+        when()
+                .get("/items/1")
+                .then()
+                .statusCode(200);
+
+        //when statement statistics are requested
+        //then statements run by the repository are listed
+        when()
+                .get("/actuator/sqlstats")
+                .then()
+                .statusCode(200)
+                .body(containsString("\"sql\":"))
+                .body(containsString("\"count\":"));
+    }
+
 }
@@ -0,0 +1,199 @@
+package template.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryItemStoreTest {
+
+    @Test
+    void shouldCreateItemsWithConsecutiveIds() {
+        //given store
+        var store = new InMemoryItemStore();
+
+        //when items are created
+        var items = List.of(ItemEntity.builder().name("Item A").build(), ItemEntity.builder().name("Item B").build());
+        store.createAll(items);
+
+        //then consecutive IDs are assigned
+        assertEquals(1L, items.get(0).getId());
+        assertEquals(2L, items.get(1).getId());
+
+        //and items can be found by ID
+        assertEquals(ItemEntity.builder().id(2L).name("Item B").version(0L).build(), store.findById(2L).get());
+    }
+
+    @Test
+    void shouldReplaceItemAndIncrementVersionOnUpsert() {
+        //given store with item
+        var store = new InMemoryItemStore();
+        store.upsert(5L, ItemEntity.builder().id(5L).name("Item A").build());
+
+        //when item is upserted again
+        store.upsert(5L, ItemEntity.builder().id(5L).name("Item B").build());
+
+        //then item is replaced
+        assertEquals(ItemEntity.builder().id(5L).name("Item B").version(1L).build(), store.findById(5L).get());
+    }
+
+    @Test
+    void shouldReplaceItemOnlyInExpectedVersion() {
+        //given store with item in version 1
+        var store = new InMemoryItemStore();
+        store.upsert(5L, ItemEntity.builder().id(5L).name("Item A").build());
+        store.upsert(5L, ItemEntity.builder().id(5L).name("Item B").build());
+
+        //when item is replaced with outdated and current version
+        var replacedOutdated = store.replace(5L, ItemEntity.builder().name("Item C").build(), 0L);
+        var replacedCurrent = store.replace(5L, ItemEntity.builder().name("Item D").build(), 1L);
+
+        //then only the replacement based on current version is applied
+        assertFalse(replacedOutdated);
+        assertTrue(replacedCurrent);
+        assertEquals(ItemEntity.builder().id(5L).name("Item D").version(2L).build(), store.findById(5L).get());
+
+        //and missing item is not replaced, even when any version is expected
+        assertFalse(store.replace(6L, ItemEntity.builder().name("Item E").build(), null));
+        assertTrue(store.findById(6L).isEmpty());
+    }
+
+    @Test
+    void shouldReplaceItemOnlyWhileItIsTheExpectedOne() {
+        //given store with item read in version 0
+        var store = new InMemoryItemStore();
+        store.upsert(5L, ItemEntity.builder().id(5L).name("Item A").build());
+        var expected = store.findById(5L).orElseThrow();
+
+        //and item deleted and written again in the same version with another name
+        store.deleteById(5L);
+        store.upsert(5L, ItemEntity.builder().id(5L).name("Item B").build());
+
+        //when item is replaced, expecting the item that was read
+        var replacedChanged = store.replace(5L, ItemEntity.builder().name("Item C").build(), expected);
+        var replacedCurrent = store.replace(5L, ItemEntity.builder().name("Item D").build(), store.findById(5L).orElseThrow());
+
+        //then only the replacement expecting the current item is applied
+        assertFalse(replacedChanged);
+        assertTrue(replacedCurrent);
+        assertEquals(ItemEntity.builder().id(5L).name("Item D").version(1L).build(), store.findById(5L).get());
+    }
+
+    @Test
+    void shouldNotCreateItemWithUpsertedId() {
+        //given store with upserted item
+        var store = new InMemoryItemStore();
+        store.upsert(5L, ItemEntity.builder().id(5L).name("Item A").build());
+
+        //when item is created
+        var item = ItemEntity.builder().name("Item B").build();
+        store.create(item);
+
+        //then ID following the upserted one is assigned
+        assertEquals(6L, item.getId());
+    }
+
+    @Test
+    void shouldNotAcceptReservedId() {
+        //given store
+        var store = new InMemoryItemStore();
+
+        //when item with reserved ID is upserted
+        //then exception is thrown
+        assertThrows(IllegalArgumentException.class, () -> store.upsert(Long.MIN_VALUE, ItemEntity.builder().name("Item A").build()));
+    }
+
+    @Test
+    void shouldFindRemainingItemsAfterDelete() {
+        //given store with many items
+        var store = new InMemoryItemStore();
+        store.createAll(IntStream.range(0, 10_000).mapToObj(i -> ItemEntity.builder().name("Item " + i).build()).toList());
+
+        //when every other item is deleted
+        var deleted = store.deleteAllById(LongStream.rangeClosed(1, 10_000).filter(id -> id % 2 == 0).boxed().toList());
+
+        //then deleted items can no longer be found
+        assertEquals(5_000, deleted);
+        assertTrue(store.findById(2L).isEmpty());
+        assertFalse(store.deleteById(2L));
+
+        //and remaining items can still be found
+        LongStream.rangeClosed(1, 10_000).filter(id -> id % 2 == 1).forEach(id -> assertTrue(store.findById(id).isPresent()));
+    }
+
+    @Test
+    void shouldFindPageOrderedById() {
+        //given store with items upserted out of order
+        var store = new InMemoryItemStore();
+        store.upsertAll(LongStream.of(30, 10, 50, 20, 40).mapToObj(id -> ItemEntity.builder().id(id).name("Item " + id).build()).toList());
+
+        //when page is requested
+        var page = store.findPage(10L, 3);
+
+        //then items following the cursor are returned in ID order
+        assertEquals(List.of(20L, 30L, 40L), page.stream().map(ItemEntity::getId).toList());
+
+        //and all items are returned in ID order
+        assertEquals(List.of(10L, 20L, 30L, 40L, 50L), store.findAll().stream().map(ItemEntity::getId).toList());
+    }
+
+    @Test
+    void shouldStreamAllItemsInIdOrder() {
+        //given store with more items than fit in single stream page
+        var store = new InMemoryItemStore();
+        store.createAll(IntStream.range(0, 2_500).mapToObj(i -> ItemEntity.builder().name("Item " + i).build()).toList());
+
+        //when items are streamed
+        var ids = new ArrayList<Long>();
+        store.forEach(item -> ids.add(item.getId()));
+
+        //then all items are streamed in ID order
+        assertEquals(LongStream.rangeClosed(1, 2_500).boxed().toList(), ids);
+    }
+
+    @Test
+    void shouldChangeVersionWhenItemIsWritten() {
+        //given store and its current version
+        var store = new InMemoryItemStore();
+        var version = store.getVersion();
+
+        //when item is created
+        store.create(ItemEntity.builder().name("Item A").build());
+
+        //then version is changed
+        assertNotEquals(version, store.getVersion());
+    }
+
+    @Test
+    void shouldKeepAllItemsWrittenConcurrently() {
+        //given store
+        var store = new InMemoryItemStore();
+
+        //when items are upserted and read by concurrent threads
+        try (var executor = Executors.newFixedThreadPool(8)) {
+            for (int thread = 0; thread < 8; thread++) {
+                var offset = thread * 10_000L;
+                executor.submit(() -> {
+                    for (long id = offset + 1; id <= offset + 10_000; id++) {
+                        store.upsert(id, ItemEntity.builder().id(id).name("Item " + id).build());
+                        store.findById(id - 1);
+                    }
+                });
+            }
+        }
+
+        //then all items are stored
+        assertEquals(80_000, store.findAll().size());
+        assertEquals("Item 12345", store.findById(12_345L).get().getName());
+    }
+
+}
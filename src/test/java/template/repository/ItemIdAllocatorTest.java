@@ -0,0 +1,171 @@
+package template.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static template.repository.ItemIdAllocator.BLOCK_SIZE;
+import static template.repository.Queries.ALTER_SEQUENCE_QUERY;
+import static template.repository.Queries.CURRENT_SEQ_VAL_QUERY;
+import static template.repository.Queries.NEXT_SEQ_VAL_QUERY;
+
+class ItemIdAllocatorTest {
+
+    @Test
+    void shouldAllocateIdsFromSequenceBlock() {
+        //given entity manager with sequence starting at 4
+        var entityManager = mock(EntityManager.class);
+        var nextValQuery = createQuery(entityManager, NEXT_SEQ_VAL_QUERY, 4L);
+
+        //and ID allocator
+        var allocator = new ItemIdAllocator(entityManager, new SimpleMeterRegistry());
+
+        //when whole block of IDs is allocated
+        for (long i = 0; i < BLOCK_SIZE; i++) {
+            //then consecutive IDs are returned
+            assertEquals(4L + i, allocator.nextId());
+        }
+
+        //and sequence was queried only once
+        verify(nextValQuery, times(1)).getSingleResult();
+    }
+
+    @Test
+    void shouldAllocateNextBlockWhenCurrentIsExhausted() {
+        //given entity manager with sequence returning consecutive blocks
+        var entityManager = mock(EntityManager.class);
+        var nextValQuery = createQuery(entityManager, NEXT_SEQ_VAL_QUERY, 1L);
+        when(nextValQuery.getSingleResult()).thenReturn(1L, 1L + BLOCK_SIZE);
+
+        //and ID allocator with exhausted block
+        var allocator = new ItemIdAllocator(entityManager, new SimpleMeterRegistry());
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            allocator.nextId();
+        }
+
+        //when another ID is allocated
+        var id = allocator.nextId();
+
+        //then ID from the next block is returned
+        assertEquals(1L + BLOCK_SIZE, id);
+
+        //and sequence was queried for each block
+        verify(nextValQuery, times(2)).getSingleResult();
+    }
+
+    @Test
+    void shouldSkipReservedIdWithinCurrentBlock() {
+        //given entity manager with sequence starting at 1
+        var entityManager = mock(EntityManager.class);
+        createQuery(entityManager, NEXT_SEQ_VAL_QUERY, 1L);
+
+        //and ID allocator with current block
+        var allocator = new ItemIdAllocator(entityManager, new SimpleMeterRegistry());
+        allocator.nextId();
+
+        //when ID from current block is reserved
+        allocator.reserve(5L);
+
+        //then reserved ID is not allocated
+        assertEquals(6L, allocator.nextId());
+
+        //and sequence was not altered
+        verify(entityManager, never()).createNativeQuery(String.format(ALTER_SEQUENCE_QUERY, 6L));
+    }
+
+    @Test
+    void shouldMoveSequenceAheadOfReservedId() {
+        //given entity manager with sequence starting at 4
+        var entityManager = mock(EntityManager.class);
+        createQuery(entityManager, CURRENT_SEQ_VAL_QUERY, 4L);
+        var alterQuery = createQuery(entityManager, String.format(ALTER_SEQUENCE_QUERY, 101L), 0L);
+
+        //and ID allocator
+        var allocator = new ItemIdAllocator(entityManager, new SimpleMeterRegistry());
+
+        //when ID beyond sequence is reserved
+        allocator.reserve(100L);
+
+        //then sequence is moved ahead of reserved ID
+        verify(alterQuery).executeUpdate();
+    }
+
+    @Test
+    void shouldReadSequenceAgainBeforeRestartingIt() {
+        //given entity manager with sequence starting at 4
+        var entityManager = mock(EntityManager.class);
+        createQuery(entityManager, NEXT_SEQ_VAL_QUERY, 4L);
+
+        //and sequence moved past the next block by another instance
+        createQuery(entityManager, CURRENT_SEQ_VAL_QUERY, 1000L);
+
+        //and ID allocator with current block
+        var allocator = new ItemIdAllocator(entityManager, new SimpleMeterRegistry());
+        allocator.nextId();
+
+        //when ID beyond current block but below sequence is reserved
+        allocator.reserve(100L);
+
+        //then sequence is not moved back
+        verify(entityManager, never()).createNativeQuery(String.format(ALTER_SEQUENCE_QUERY, 101L));
+    }
+
+    @Test
+    void shouldNotQuerySequenceForIdBelowCurrentBlock() {
+        //given entity manager with sequence starting at 4
+        var entityManager = mock(EntityManager.class);
+        createQuery(entityManager, NEXT_SEQ_VAL_QUERY, 4L);
+
+        //and ID allocator with current block
+        var allocator = new ItemIdAllocator(entityManager, new SimpleMeterRegistry());
+        allocator.nextId();
+
+        //when ID below current block is reserved
+        allocator.reserve(1L);
+
+        //then sequence is neither queried nor altered
+        verify(entityManager, never()).createNativeQuery(CURRENT_SEQ_VAL_QUERY);
+        verify(entityManager, times(1)).createNativeQuery(anyString());
+    }
+
+    @Test
+    void shouldRecordIdAllocationMetrics() {
+        //given entity manager with sequence starting at 4
+        var entityManager = mock(EntityManager.class);
+        createQuery(entityManager, NEXT_SEQ_VAL_QUERY, 4L);
+        createQuery(entityManager, CURRENT_SEQ_VAL_QUERY, 4L + BLOCK_SIZE);
+        createQuery(entityManager, String.format(ALTER_SEQUENCE_QUERY, 101L), 0L);
+
+        //and ID allocator with meter registry
+        var registry = new SimpleMeterRegistry();
+        var allocator = new ItemIdAllocator(entityManager, registry);
+
+        //when ID is allocated and ID beyond sequence is reserved
+        allocator.nextId();
+        allocator.reserve(100L);
+
+        //then lock wait is recorded for each lock acquisition
+        assertEquals(2, registry.get("items.repository.id.lock.wait").timer().count());
+
+        //and block allocation, reservation and sequence restart are counted
+        assertEquals(1, registry.get("items.repository.id.blocks").counter().count());
+        assertEquals(1, registry.get("items.repository.id.reservations").counter().count());
+        assertEquals(1, registry.get("items.repository.id.sequence.restarts").counter().count());
+    }
+
+    private Query createQuery(EntityManager em, String sql, Long result) {
+        var query = mock(Query.class);
+        when(em.createNativeQuery(sql)).thenReturn(query);
+        when(query.getSingleResult()).thenReturn(result);
+        return query;
+    }
+
+}
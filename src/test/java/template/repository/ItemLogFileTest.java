@@ -0,0 +1,83 @@
+package template.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ItemLogFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReplayRecordsInOrderAcrossRegions() throws IOException {
+        //given log with small regions
+        var path = directory.resolve("items.log");
+        try (var log = ItemLogFile.create(path, 256, 7, 42)) {
+            //when records filling several regions are appended
+            for (long id = 1; id <= 20; id++) {
+                log.appendPut(id, 0, "Item " + id);
+            }
+            log.appendDelete(3);
+            log.appendPut(5, 1, null);
+        }
+
+        //then all records are replayed in order
+        var records = new ArrayList<String>();
+        var header = ItemLogFile.replay(path, handler(records));
+        assertEquals(22, records.size());
+        assertEquals("put 1 0 Item 1", records.getFirst());
+        assertEquals(List.of("delete 3", "put 5 1 null"), records.subList(20, 22));
+
+        //and header is read
+        assertEquals(new ItemLogFile.Header(7, 42), header);
+    }
+
+    @Test
+    void shouldStopReplayAtCorruptedRecord() throws IOException {
+        //given log with two records
+        var path = directory.resolve("items.log");
+        try (var log = ItemLogFile.create(path, 1024, 1, 0)) {
+            log.appendPut(1, 0, "Item A");
+            log.appendPut(2, 0, "Item B");
+        }
+
+        //and name of the second record corrupted, as if it was torn by a crash
+        try (var channel = FileChannel.open(path, READ, WRITE)) {
+            var secondRecordName = ItemLogFile.HEADER_SIZE + 2 * (8 + 21 + 6) - 1;
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), secondRecordName);
+        }
+
+        //when log is replayed
+        var records = new ArrayList<String>();
+        ItemLogFile.replay(path, handler(records));
+
+        //then only intact records are replayed
+        assertEquals(List.of("put 1 0 Item A"), records);
+    }
+
+    private ItemLogFile.Handler handler(List<String> records) {
+        return new ItemLogFile.Handler() {
+            @Override
+            public void put(long id, long version, String name) {
+                records.add("put " + id + " " + version + " " + name);
+            }
+
+            @Override
+            public void delete(long id) {
+                records.add("delete " + id);
+            }
+        };
+    }
+
+}
@@ -0,0 +1,81 @@
+package template.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import template.AbstractIntegrationTest;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static template.repository.ItemIdAllocator.BLOCK_SIZE;
+
+//throughput for different numbers of writers is measured by ItemWriteScalingBenchmark
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:layered-concurrency-test")
+class ItemRepositoryConcurrencyIntegrationTest extends AbstractIntegrationTest {
+
+    private static final int WRITES_PER_THREAD = 500;
+
+    private static final long EXPLICIT_ID_OFFSET = 1_000_000;
+
+    @Autowired
+    private ItemRepository repository;
+
+    @Autowired
+    private ItemJpaRepository jpaRepository;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 4, 8})
+    void shouldWriteConcurrently(int threads) throws Exception {
+        //given number of existing items
+        var initialCount = jpaRepository.count();
+        var initialBlocks = registry.get("items.repository.id.blocks").counter().count();
+
+        //and explicit IDs far ahead of the sequence, so they never overlap with the allocated ones
+        var maxId = jpaRepository.findAll().stream().mapToLong(ItemEntity::getId).max().orElse(0);
+        var explicitIds = new AtomicLong(maxId + EXPLICIT_ID_OFFSET);
+
+        //and writers alternating between creates and upserts
+        var writers = new ArrayList<Callable<Void>>();
+        for (int t = 0; t < threads; t++) {
+            writers.add(() -> {
+                for (int i = 0; i < WRITES_PER_THREAD; i++) {
+                    if (i % 2 == 0) {
+                        repository.create(ItemEntity.builder().name("Created").build());
+                    } else {
+                        var id = explicitIds.getAndDecrement();
+                        repository.upsert(id, ItemEntity.builder().id(id).name("Upserted").build());
+                    }
+                }
+                return null;
+            });
+        }
+
+        //when writes are executed concurrently
+        try (var executor = Executors.newFixedThreadPool(threads)) {
+            for (Future<Void> result : executor.invokeAll(writers)) {
+                result.get();
+            }
+        }
+
+        //then every write is stored under its own ID
+        assertEquals(initialCount + (long) threads * WRITES_PER_THREAD, jpaRepository.count());
+
+        //and sequence is queried once per block regardless of the number of writers, one more block follows the restart
+        //of the sequence ahead of explicit IDs
+        var creates = threads * WRITES_PER_THREAD / 2;
+        var blocks = registry.get("items.repository.id.blocks").counter().count() - initialBlocks;
+        assertTrue(blocks <= creates / BLOCK_SIZE + 1, "blocks allocated: " + blocks);
+    }
+
+}
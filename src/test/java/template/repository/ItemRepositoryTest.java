@@ -2,21 +2,29 @@ package template.repository;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.Query;
+import org.hibernate.Session;
+import org.hibernate.jdbc.Work;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.startsWith;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
-import static template.repository.Queries.ALTER_SEQUENCE_QUERY;
-import static template.repository.Queries.CURRENT_SEQ_VAL_QUERY;
-import static template.repository.Queries.LOCK_QUERY;
+import static template.repository.Queries.DELETE_RETURNING_IDS_QUERY;
 import static template.repository.Queries.MERGE_QUERY;
 import static template.util.TestItems.createTestItemEntities;
 
@@ -32,7 +40,7 @@ class ItemRepositoryTest {
         when(jpaRepository.findById(1L)).thenReturn(Optional.of(entity));
 
         //and repository
-        var repository = new ItemRepository(mock(EntityManager.class), jpaRepository);
+        var repository = new ItemRepository(mock(EntityManager.class), jpaRepository, mock(ItemIdAllocator.class), mock(ItemChangeSequence.class));
 
         //when item is requested
         var result = repository.findById(1L);
@@ -54,7 +62,7 @@ class ItemRepositoryTest {
         when(jpaRepository.findAll()).thenReturn(entities);
 
         //and repository
-        var repository = new ItemRepository(mock(EntityManager.class), jpaRepository);
+        var repository = new ItemRepository(mock(EntityManager.class), jpaRepository, mock(ItemIdAllocator.class), mock(ItemChangeSequence.class));
 
         //when items are requested
         var result = repository.findAll();
@@ -67,29 +75,88 @@ class ItemRepositoryTest {
     }
 
     @Test
-    void shouldCreateItem() {
-        //given entity
-        var entity = ItemEntity.builder().name("Item A").build();
+    void shouldFindItemsPage() {
+        //given entities
+        var entities = createTestItemEntities().subList(1, 3);
+
+        //and JPA repository
+        var jpaRepository = mock(ItemJpaRepository.class);
+        when(jpaRepository.findByIdGreaterThanOrderByIdAsc(1L, Limit.of(2))).thenReturn(entities);
+
+        //and repository
+        var repository = new ItemRepository(mock(EntityManager.class), jpaRepository, mock(ItemIdAllocator.class), mock(ItemChangeSequence.class));
+
+        //when page of items is requested
+        var result = repository.findPage(1L, 2);
+
+        //then items from the page are returned
+        assertEquals(entities, result);
+
+        //and repository was queried for data
+        verify(jpaRepository).findByIdGreaterThanOrderByIdAsc(1L, Limit.of(2));
+    }
+
+    @Test
+    void shouldFindFirstItemsPage() {
+        //given JPA repository
+        var jpaRepository = mock(ItemJpaRepository.class);
+
+        //and repository
+        var repository = new ItemRepository(mock(EntityManager.class), jpaRepository, mock(ItemIdAllocator.class), mock(ItemChangeSequence.class));
+
+        //when first page of items is requested
+        repository.findPage(null, 2);
+
+        //then repository was queried for data starting from the lowest ID
+        verify(jpaRepository).findByIdGreaterThanOrderByIdAsc(Long.MIN_VALUE, Limit.of(2));
+    }
+
+    @Test
+    void shouldIterateOverItems() {
+        //given entities
+        var entities = createTestItemEntities();
 
         //and JPA repository
         var jpaRepository = mock(ItemJpaRepository.class);
+        when(jpaRepository.streamAllByOrderByIdAsc()).thenReturn(entities.stream());
+
+        //and entity manager
+        var entityManager = mock(EntityManager.class);
+
+        //and repository
+        var repository = new ItemRepository(entityManager, jpaRepository, mock(ItemIdAllocator.class), mock(ItemChangeSequence.class));
+
+        //when items are iterated
+        var result = new ArrayList<ItemEntity>();
+        repository.forEach(result::add);
+
+        //then all items are visited
+        assertEquals(entities, result);
+
+        //and visited items are detached from persistence context
+        entities.forEach(entity -> verify(entityManager).detach(entity));
+    }
+
+    @Test
+    void shouldCreateItem() {
+        //given entity
+        var entity = ItemEntity.builder().name("Item A").build();
 
         //and entity manager
         var entityManager = mock(EntityManager.class);
-        var lockQuery = createLockQuery(entityManager);
+
+        //and ID allocator
+        var idAllocator = mock(ItemIdAllocator.class);
+        when(idAllocator.nextId()).thenReturn(4L);
 
         //and repository
-        var repository = new ItemRepository(entityManager, jpaRepository);
+        var repository = new ItemRepository(entityManager, mock(ItemJpaRepository.class), idAllocator, mock(ItemChangeSequence.class));
 
         //when item is created
         repository.create(entity);
 
-        //then lock query is executed
-        verify(entityManager).createNativeQuery(LOCK_QUERY);
-        verify(lockQuery).getResultList();
-
-        //and item is saved in repository
-        verify(jpaRepository).save(entity);
+        //then item is saved with allocated ID
+        verify(entityManager).persist(ItemEntity.builder().id(4L).name("Item A").build());
     }
 
     @Test
@@ -97,34 +164,84 @@ class ItemRepositoryTest {
         //given entity
         var entity = ItemEntity.builder().id(1L).name("Item A").build();
 
-        //and JPA repository
-        var jpaRepository = mock(ItemJpaRepository.class);
-
-        //and entity manager with helper methods for queries
+        //and entity manager with helper method for merge query
         var entityManager = mock(EntityManager.class);
-        var lockQuery = createLockQuery(entityManager);
         var mergeQuery = createMergeQuery(entityManager);
-        var seqQuery = createSequenceQuery(entityManager);
-        createAlterSequenceQuery(entityManager, 2L);
+
+        //and ID allocator
+        var idAllocator = mock(ItemIdAllocator.class);
 
         //and repository
-        var repository = new ItemRepository(entityManager, jpaRepository);
+        var repository = new ItemRepository(entityManager, mock(ItemJpaRepository.class), idAllocator, mock(ItemChangeSequence.class));
 
         //when item is upserted
         repository.upsert(entity.getId(), entity);
 
-        //then lock query is executed
-        verify(entityManager).createNativeQuery(LOCK_QUERY);
-        verify(lockQuery).getResultList();
+        //then ID is reserved so it is not allocated to new items
+        verify(idAllocator).reserve(entity.getId());
 
         //and merge query is executed
         verify(entityManager).createNativeQuery(MERGE_QUERY);
         verify(mergeQuery).setParameter(1, entity.getId());
         verify(mergeQuery).setParameter(2, entity.getName());
+        verify(mergeQuery).executeUpdate();
+    }
+
+    @Test
+    void shouldCreateItems() {
+        //given entities
+        var entities = List.of(ItemEntity.builder().name("Item A").build(), ItemEntity.builder().name("Item B").build());
+
+        //and entity manager
+        var entityManager = mock(EntityManager.class);
+
+        //and ID allocator
+        var idAllocator = mock(ItemIdAllocator.class);
+        when(idAllocator.nextId()).thenReturn(4L, 5L);
+
+        //and repository
+        var repository = new ItemRepository(entityManager, mock(ItemJpaRepository.class), idAllocator, mock(ItemChangeSequence.class));
+
+        //when items are created
+        repository.createAll(entities);
+
+        //then items are saved with allocated IDs
+        verify(entityManager).persist(ItemEntity.builder().id(4L).name("Item A").build());
+        verify(entityManager).persist(ItemEntity.builder().id(5L).name("Item B").build());
+    }
+
+    @Test
+    void shouldUpsertItems() throws SQLException {
+        //given entities
+        var entities = createTestItemEntities();
+
+        //and entity manager with JDBC connection
+        var entityManager = mock(EntityManager.class);
+        var session = mock(Session.class);
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        var connection = mock(Connection.class);
+        var statement = mock(PreparedStatement.class);
+        when(connection.prepareStatement(MERGE_QUERY)).thenReturn(statement);
+        doAnswer(invocation -> {
+            invocation.<Work>getArgument(0).execute(connection);
+            return null;
+        }).when(session).doWork(any());
+
+        //and ID allocator
+        var idAllocator = mock(ItemIdAllocator.class);
+
+        //and repository
+        var repository = new ItemRepository(entityManager, mock(ItemJpaRepository.class), idAllocator, mock(ItemChangeSequence.class));
+
+        //when items are upserted
+        repository.upsertAll(entities);
+
+        //then highest ID is reserved once for the whole batch
+        verify(idAllocator).reserve(3L);
 
-        //and sequence query is executed
-        verify(seqQuery).getSingleResult();
-        verify(entityManager).createNativeQuery(String.format(ALTER_SEQUENCE_QUERY, entity.getId() + 1));
+        //and merge statements are executed in a single batch
+        verify(statement, times(3)).addBatch();
+        verify(statement).executeBatch();
     }
 
     @Test
@@ -132,20 +249,65 @@ class ItemRepositoryTest {
         //given JPA repository
         var jpaRepository = mock(ItemJpaRepository.class);
         //and repository
-        var repository = new ItemRepository(mock(EntityManager.class), jpaRepository);
+        var repository = new ItemRepository(mock(EntityManager.class), jpaRepository, mock(ItemIdAllocator.class), mock(ItemChangeSequence.class));
 
         //when item is deleted
         repository.deleteById(1L);
 
-        //then item is deleted from JPA repository
-        verify(jpaRepository).deleteById(1L);
+        //then item is deleted from JPA repository with single statement
+        verify(jpaRepository).deleteItem(1L);
     }
 
-    private Query createLockQuery(EntityManager em) {
-        var query = mock(Query.class);
-        when(em.createNativeQuery(LOCK_QUERY)).thenReturn(query);
-        when(query.getResultList()).thenReturn(List.of(1));
-        return query;
+    @Test
+    void shouldDeleteItemsById() throws SQLException {
+        //given IDs of items
+        var ids = List.of(1L, 2L, 100L);
+
+        //and entity manager with JDBC connection deleting two of them
+        var entityManager = mock(EntityManager.class);
+        var session = mock(Session.class);
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        var connection = mock(Connection.class);
+        var statement = mock(PreparedStatement.class);
+        var result = mock(ResultSet.class);
+        when(connection.prepareStatement(DELETE_RETURNING_IDS_QUERY)).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(result);
+        when(result.next()).thenReturn(true, true, false);
+        when(result.getLong(1)).thenReturn(1L, 2L);
+        doAnswer(invocation -> {
+            invocation.<Work>getArgument(0).execute(connection);
+            return null;
+        }).when(session).doWork(any());
+
+        //and repository
+        var repository = new ItemRepository(entityManager, mock(ItemJpaRepository.class), mock(ItemIdAllocator.class), mock(ItemChangeSequence.class));
+
+        //when items are deleted
+        var count = repository.deleteAllById(ids);
+
+        //then items are deleted with a single statement, which returns the deleted IDs
+        verify(statement).setObject(1, new Long[]{1L, 2L, 100L});
+        assertEquals(2, count);
+    }
+
+    @Test
+    void shouldReadVersionFromChangeSequenceWithoutQueryingItems() {
+        //given entity manager
+        var em = mock(EntityManager.class);
+
+        //and change sequence
+        var changes = mock(ItemChangeSequence.class);
+        when(changes.version()).thenReturn("2a");
+
+        //and repository
+        var repository = new ItemRepository(em, mock(ItemJpaRepository.class), mock(ItemIdAllocator.class), changes);
+
+        //when version is requested
+        var version = repository.getVersion();
+
+        //then it is read from the change sequence, without querying items
+        assertEquals("2a", version);
+        verifyNoInteractions(em);
     }
 
     private Query createMergeQuery(EntityManager em) {
@@ -155,16 +317,4 @@ class ItemRepositoryTest {
         return query;
     }
 
-    private Query createSequenceQuery(EntityManager em) {
-        var query = mock(Query.class);
-        when(em.createNativeQuery(CURRENT_SEQ_VAL_QUERY)).thenReturn(query);
-        when(query.getSingleResult()).thenReturn(0L);
-        return query;
-    }
-
-    private void createAlterSequenceQuery(EntityManager em, Long id) {
-        var query = mock(Query.class);
-        when(em.createNativeQuery(String.format(ALTER_SEQUENCE_QUERY, id))).thenReturn(query);
-    }
-
 }
\ No newline at end of file
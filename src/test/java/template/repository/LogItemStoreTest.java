@@ -0,0 +1,77 @@
+package template.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogItemStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldRecoverItemsAfterRestart() throws Exception {
+        //given store with created, upserted and deleted items
+        var store = open(1_000);
+        store.createAll(List.of(ItemEntity.builder().name("Item A").build(), ItemEntity.builder().name("Item B").build()));
+        store.upsert(1L, ItemEntity.builder().id(1L).name("Item A2").build());
+        store.upsert(10L, ItemEntity.builder().id(10L).name("Item C").build());
+        store.deleteById(2L);
+        store.close();
+
+        //when store is opened again
+        var recovered = open(1_000);
+
+        //then items are recovered with their versions
+        assertEquals(List.of(
+                ItemEntity.builder().id(1L).name("Item A2").version(1L).build(),
+                ItemEntity.builder().id(10L).name("Item C").version(0L).build()
+        ), recovered.findAll());
+
+        //and IDs are not handed out again
+        var item = ItemEntity.builder().name("Item D").build();
+        recovered.create(item);
+        assertEquals(11L, item.getId());
+        recovered.close();
+    }
+
+    @Test
+    void shouldRecoverItemsFromSnapshotAndLogTail() throws Exception {
+        //given store taking snapshot every 100 writes
+        var store = open(100);
+
+        //when more items are written than fit in single snapshot interval
+        store.createAll(IntStream.range(0, 150).mapToObj(i -> ItemEntity.builder().name("Item " + i).build()).toList());
+        store.createAll(IntStream.range(150, 250).mapToObj(i -> ItemEntity.builder().name("Item " + i).build()).toList());
+        store.upsert(1L, ItemEntity.builder().id(1L).name("Item A").build());
+        store.close();
+
+        //then snapshot is written and logs covered by it are deleted
+        try (var files = Files.list(directory)) {
+            var names = files.map(file -> file.getFileName().toString()).toList();
+            assertTrue(names.stream().anyMatch(name -> name.endsWith(".snapshot")));
+            assertTrue(names.stream().noneMatch(name -> name.startsWith("items-0000000000000000001.")));
+        }
+
+        //and all items are recovered
+        var recovered = open(100);
+        assertEquals(250, recovered.findAll().size());
+        assertEquals("Item A", recovered.findById(1L).get().getName());
+        recovered.close();
+    }
+
+    private LogItemStore open(long snapshotThreshold) throws IOException {
+        var store = new LogItemStore(directory, 4096, snapshotThreshold, false);
+        store.open();
+        return store;
+    }
+
+}
@@ -0,0 +1,130 @@
+package template.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.TestPropertySource;
+import template.AbstractIntegrationTest;
+import template.api.model.ItemDTO;
+
+import static io.restassured.RestAssured.given;
+import static io.restassured.RestAssured.when;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static template.api.ReadYourWritesFilter.RECENT_WRITE_COOKIE;
+
+//replica is a separate in-memory database holding different names, so that it is visible where a read was served from
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:layered-routing-test",
+        "items.datasource.replica-urls=jdbc:h2:mem:layered-routing-replica;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:replica-test.sql'",
+        "items.datasource.read-your-writes-window=1m"
+})
+class ReplicaRoutingIntegrationTest extends AbstractIntegrationTest {
+
+    @Test
+    void shouldReadFromReplica() {
+        when()
+                .get("/items/2")
+                .then()
+                .statusCode(200)
+                .body("name", equalTo("Replica item B"));
+    }
+
+    @Test
+    void shouldReadOwnWritesFromPrimary() {
+        //given item written to primary
+        var cookie = given()
+                .contentType("application/json")
+                .body(new ItemDTO().id(4L).name("Item D"))
+                .when()
+                .put("/items/4")
+                .then()
+                .statusCode(200)
+                .extract()
+                .cookie(RECENT_WRITE_COOKIE);
+
+        //when item is read by another client
+        //then it is not found on replica
+        when()
+                .get("/items/4")
+                .then()
+                .statusCode(404);
+
+        //when item is read by the client that wrote it
+        //then it is read from primary
+        given()
+                .cookie(RECENT_WRITE_COOKIE, cookie)
+                .when()
+                .get("/items/4")
+                .then()
+                .statusCode(200)
+                .body("name", equalTo("Item D"));
+
+        //cleanup
+        when()
+                .delete("/items/4")
+                .then()
+                .statusCode(200);
+    }
+
+    @Test
+    void shouldNotServeValueReadFromReplicaToClientThatWrote() {
+        //given item changed on primary
+        var cookie = given()
+                .contentType("application/json")
+                .body(new ItemDTO().id(2L).name("Item B2"))
+                .when()
+                .put("/items/2")
+                .then()
+                .statusCode(200)
+                .extract()
+                .cookie(RECENT_WRITE_COOKIE);
+
+        //when item is read by another client
+        //then its previous name is read from replica
+        when()
+                .get("/items/2")
+                .then()
+                .statusCode(200)
+                .body("name", equalTo("Replica item B"));
+
+        //when item is read by the client that changed it
+        //then it is read from primary instead of the value read from replica in the meantime
+        given()
+                .cookie(RECENT_WRITE_COOKIE, cookie)
+                .when()
+                .get("/items/2")
+                .then()
+                .statusCode(200)
+                .body("name", equalTo("Item B2"));
+
+        //cleanup
+        given()
+                .contentType("application/json")
+                .body(new ItemDTO().id(2L).name("Item B"))
+                .when()
+                .put("/items/2")
+                .then()
+                .statusCode(200);
+    }
+
+    @Test
+    void shouldCountStatementsOfEachDataSource() {
+        //given item read from replica
+        when()
+                .get("/items")
+                .then()
+                .statusCode(200);
+
+        //when statement counts of replica are requested
+        var count = when()
+                .get("/actuator/metrics/" + StatementStatistics.STATEMENTS_METRIC + "?tag=datasource:replica-0")
+                .then()
+                .statusCode(200)
+                .extract()
+                .jsonPath()
+                .getDouble("measurements[0].value");
+
+        //then statements run on replica are counted
+        assertTrue(count > 0);
+    }
+
+}
@@ -0,0 +1,196 @@
+package template.repository;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static template.repository.Queries.CURRENT_SEQ_VAL_QUERY;
+
+class ShardedItemStoreTest {
+
+    private static final int SHARDS = 3;
+
+    private List<DataSource> dataSources;
+
+    private ShardedItemStore store;
+
+    @BeforeEach
+    void setUp() {
+        //every test gets databases of its own, kept open until the store is closed
+        var name = UUID.randomUUID();
+        dataSources = IntStream.range(0, SHARDS).mapToObj(i -> createDataSource("jdbc:h2:mem:shard-" + name + "-" + i + ";DB_CLOSE_DELAY=-1")).toList();
+        store = new ShardedItemStore(dataSources);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+        dataSources.forEach(dataSource -> new JdbcTemplate(dataSource).execute("SHUTDOWN"));
+    }
+
+    @Test
+    void shouldSpreadCreatedItemsOverShardsWithUniqueIds() {
+        //when items are created one by one and in batch
+        var items = IntStream.range(0, 300).mapToObj(i -> ItemEntity.builder().name("Item " + i).build()).toList();
+        items.subList(0, 100).forEach(store::create);
+        store.createAll(items.subList(100, 300));
+
+        //then IDs are unique
+        var ids = new HashSet<Long>();
+        items.forEach(item -> assertTrue(ids.add(item.getId())));
+
+        //and every shard holds its share of items, all of them with IDs it owns
+        for (int i = 0; i < SHARDS; i++) {
+            var shardIds = new JdbcTemplate(dataSources.get(i)).queryForList("SELECT id FROM item", Long.class);
+            assertEquals(100, shardIds.size());
+            for (var id : shardIds) {
+                assertEquals(i, Math.floorMod(id, SHARDS));
+            }
+        }
+
+        //and every item can be found by its ID
+        items.forEach(item -> assertEquals(item.getName(), store.findById(item.getId()).orElseThrow().getName()));
+    }
+
+    @Test
+    void shouldMergeItemsOfAllShardsInIdOrder() {
+        //given items put in all shards
+        store.upsertAll(IntStream.of(7, 3, 12, 1, 8, 5).mapToObj(id -> ItemEntity.builder().id((long) id).name("Item " + id).build()).toList());
+
+        //when all items, a page and items by ID are read
+        var all = store.findAll();
+        var page = store.findPage(3L, 3);
+        var byId = store.findAllById(List.of(12L, 1L, 8L, 2L));
+
+        //then items of all shards are returned in ID order
+        assertEquals(List.of(1L, 3L, 5L, 7L, 8L, 12L), all.stream().map(ItemEntity::getId).toList());
+        assertEquals(List.of(5L, 7L, 8L), page.stream().map(ItemEntity::getId).toList());
+        assertEquals(List.of(1L, 8L, 12L), byId.stream().map(ItemEntity::getId).toList());
+    }
+
+    @Test
+    void shouldNotHandOutUpsertedIds() {
+        //given item upserted with ID the owning shard would hand out next
+        var created = ItemEntity.builder().name("Item A").build();
+        store.create(created);
+        var upsertedId = created.getId() + SHARDS;
+        store.upsert(upsertedId, ItemEntity.builder().id(upsertedId).name("Item B").build());
+
+        //and item upserted with ID far beyond the current block of its shard
+        store.upsert(10_000L, ItemEntity.builder().id(10_000L).name("Item C").build());
+
+        //when many more items are created
+        var items = IntStream.range(0, 500).mapToObj(i -> ItemEntity.builder().name("Item " + i).build()).toList();
+        store.createAll(items);
+
+        //then upserted IDs are not handed out again
+        items.forEach(item -> {
+            assertNotEquals(upsertedId, item.getId());
+            assertNotEquals(10_000L, item.getId());
+        });
+        assertEquals("Item B", store.findById(upsertedId).orElseThrow().getName());
+        assertEquals("Item C", store.findById(10_000L).orElseThrow().getName());
+    }
+
+    @Test
+    void shouldNotMoveSequenceBackBelowValuesTakenByAnotherStore() {
+        //given item upserted with ID beyond the sequence of its shard
+        store.upsert(1000L, ItemEntity.builder().id(1000L).name("Item A").build());
+
+        //and another store of the same databases taking a block of IDs from every shard
+        var otherStore = new ShardedItemStore(dataSources);
+        IntStream.range(0, SHARDS).forEach(i -> otherStore.create(ItemEntity.builder().name("Item " + i).build()));
+        var sequence = new JdbcTemplate(dataSources.get(1));
+        var sequenceValue = sequence.queryForObject(CURRENT_SEQ_VAL_QUERY, Long.class);
+
+        //when item is upserted with ID of the same shard below the values taken by the other store
+        store.upsert(1006L, ItemEntity.builder().id(1006L).name("Item B").build());
+
+        //then sequence is not restarted below them
+        assertEquals(sequenceValue, sequence.queryForObject(CURRENT_SEQ_VAL_QUERY, Long.class));
+        otherStore.close();
+    }
+
+    @Test
+    void shouldReplaceAndDeleteItemsInOwningShard() {
+        //given items in different shards
+        store.upsertAll(List.of(
+                ItemEntity.builder().id(1L).name("Item A").build(),
+                ItemEntity.builder().id(2L).name("Item B").build(),
+                ItemEntity.builder().id(3L).name("Item C").build()
+        ));
+
+        //when item is replaced with stale and current version
+        var stale = store.replace(1L, ItemEntity.builder().name("Item X").build(), 5L);
+        var current = store.replace(1L, ItemEntity.builder().name("Item A2").build(), 0L);
+
+        //then only replace with current version succeeds
+        assertFalse(stale);
+        assertTrue(current);
+        assertEquals("Item A2", store.findById(1L).orElseThrow().getName());
+
+        //and items are deleted from all shards they are in
+        assertTrue(store.deleteById(2L));
+        assertFalse(store.deleteById(2L));
+        assertEquals(2, store.deleteAllById(List.of(1L, 3L, 4L)));
+        assertTrue(store.findAll().isEmpty());
+    }
+
+    @Test
+    void shouldReplaceItemOnlyWhileItIsTheExpectedOne() {
+        //given item read in version 0
+        store.upsert(1L, ItemEntity.builder().id(1L).name("Item A").build());
+        var expected = store.findById(1L).orElseThrow();
+
+        //and item deleted and written again in the same version with another name
+        store.deleteById(1L);
+        store.upsert(1L, ItemEntity.builder().id(1L).name("Item B").build());
+
+        //when item is replaced, expecting the item that was read
+        var replaced = store.replace(1L, ItemEntity.builder().name("Item C").build(), expected);
+
+        //then item is not replaced, as its name has changed even though its version has not
+        assertFalse(replaced);
+        assertEquals("Item B", store.findById(1L).orElseThrow().getName());
+        assertTrue(store.replace(1L, ItemEntity.builder().name("Item C").build(), store.findById(1L).orElseThrow()));
+    }
+
+    @Test
+    void shouldChangeVersionWithWritesOfAnotherStore() {
+        //given items in different shards
+        store.upsertAll(List.of(ItemEntity.builder().id(1L).name("Item A").build(), ItemEntity.builder().id(2L).name("Item B").build()));
+
+        //and version of another store of the same databases
+        var otherStore = new ShardedItemStore(dataSources);
+        var version = otherStore.getVersion();
+
+        //then both stores tag the same items with the same version
+        assertEquals(version, store.getVersion());
+
+        //when item is renamed by the other store
+        otherStore.replace(1L, ItemEntity.builder().name("Item X").build(), null);
+
+        //then version is changed
+        assertNotEquals(version, store.getVersion());
+        otherStore.close();
+    }
+
+    private static DataSource createDataSource(String url) {
+        var dataSource = new JdbcDataSource();
+        dataSource.setURL(url);
+        return dataSource;
+    }
+
+}
@@ -0,0 +1,141 @@
+package template.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatementStatisticsTest {
+
+    @Test
+    void shouldNormalizeLiteralsAndInLists() {
+        //when statements differing only in literals and IN list lengths are normalized
+        var first = StatementStatistics.normalize("SELECT * FROM ITEM WHERE ID IN (?, ?) AND ID > 10");
+        var second = StatementStatistics.normalize("SELECT * FROM ITEM WHERE ID IN (?, ?, ?) AND ID > 20");
+
+        //then they are the same statement
+        assertEquals("SELECT * FROM ITEM WHERE ID IN (?, ...) AND ID > ?", first);
+        assertEquals(first, second);
+    }
+
+    @Test
+    void shouldRecordStatementsRunThroughDataSource() throws SQLException {
+        //given statistics with threshold no statement exceeds
+        var registry = new SimpleMeterRegistry();
+        var statistics = new StatementStatistics(Duration.ofHours(1), registry);
+
+        //and instrumented data source with a table
+        var dataSource = createDataSource("jdbc:h2:mem:statement-statistics-test", statistics);
+
+        //when rows are inserted in a batch and one of them is updated
+        try (var connection = dataSource.getConnection()) {
+            try (var insert = connection.prepareStatement("INSERT INTO STATS_ITEM (ID, NAME) VALUES (?, ?)")) {
+                for (long id = 1; id <= 3; id++) {
+                    insert.setLong(1, id);
+                    insert.setString(2, "Item " + id);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+            try (var update = connection.prepareStatement("UPDATE STATS_ITEM SET NAME = ? WHERE ID = ?")) {
+                update.setString(1, "Updated");
+                update.setLong(2, 1L);
+                update.executeUpdate();
+            }
+        }
+
+        //then count and affected rows are recorded for each statement
+        var insert = find(statistics, "INSERT INTO STATS_ITEM (ID, NAME) VALUES (?, ?)");
+        assertEquals(1, insert.count());
+        assertEquals(3, insert.rows());
+        var update = find(statistics, "UPDATE STATS_ITEM SET NAME = ? WHERE ID = ?");
+        assertEquals(1, update.count());
+        assertEquals(1, update.rows());
+
+        //and plans are captured only for slow statements
+        assertNull(update.plan());
+
+        //and statements are counted for the data source, including the one creating the table
+        assertEquals(3, registry.counter(StatementStatistics.STATEMENTS_METRIC, "datasource", "test").count());
+    }
+
+    @Test
+    void shouldRecordStatementsAddedToBatch() throws SQLException {
+        //given statistics with threshold no statement exceeds
+        var registry = new SimpleMeterRegistry();
+        var statistics = new StatementStatistics(Duration.ofHours(1), registry);
+
+        //and instrumented data source with a table
+        var dataSource = createDataSource("jdbc:h2:mem:statement-statistics-batch-test", statistics);
+
+        //when statements are added to a batch and executed
+        try (var connection = dataSource.getConnection(); var statement = connection.createStatement()) {
+            statement.addBatch("INSERT INTO STATS_ITEM (ID, NAME) VALUES (1, 'Item 1')");
+            statement.addBatch("INSERT INTO STATS_ITEM (ID, NAME) VALUES (2, 'Item 2')");
+            statement.addBatch("DELETE FROM STATS_ITEM WHERE ID > 1");
+            statement.executeBatch();
+        }
+
+        //then each of them is recorded with its affected rows
+        var insert = find(statistics, "INSERT INTO STATS_ITEM (ID, NAME) VALUES (?, 'Item ?')");
+        assertEquals(2, insert.count());
+        assertEquals(2, insert.rows());
+        var delete = find(statistics, "DELETE FROM STATS_ITEM WHERE ID > ?");
+        assertEquals(1, delete.count());
+        assertEquals(1, delete.rows());
+
+        //and counted for the data source, including the one creating the table
+        assertEquals(4, registry.counter(StatementStatistics.STATEMENTS_METRIC, "datasource", "test").count());
+    }
+
+    @Test
+    void shouldExplainSlowStatements() throws SQLException {
+        //given statistics treating every statement as slow
+        var statistics = new StatementStatistics(Duration.ZERO, new SimpleMeterRegistry());
+
+        //and instrumented data source with a table
+        var dataSource = createDataSource("jdbc:h2:mem:statement-statistics-slow-test", statistics);
+
+        //when a query is run twice
+        try (var connection = dataSource.getConnection();
+             var query = connection.prepareStatement("SELECT NAME FROM STATS_ITEM WHERE ID = ?")) {
+            query.setLong(1, 1L);
+            query.executeQuery().close();
+            query.executeQuery().close();
+        }
+
+        //then its plan is captured
+        var summary = find(statistics, "SELECT NAME FROM STATS_ITEM WHERE ID = ?");
+        assertEquals(2, summary.count());
+        assertNotNull(summary.plan());
+        assertTrue(summary.plan().contains("STATS_ITEM"));
+        assertTrue(summary.maxMillis() <= summary.totalMillis());
+
+        //and statistics can be reset
+        statistics.reset();
+        assertTrue(statistics.summaries().isEmpty());
+    }
+
+    private DataSource createDataSource(String url, StatementStatistics statistics) throws SQLException {
+        var target = new JdbcDataSource();
+        target.setURL(url + ";DB_CLOSE_DELAY=-1");
+        var dataSource = statistics.instrument(target, "test");
+        try (var connection = dataSource.getConnection(); var statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS STATS_ITEM (ID BIGINT PRIMARY KEY, NAME VARCHAR(255))");
+        }
+        return dataSource;
+    }
+
+    private StatementStatistics.Summary find(StatementStatistics statistics, String sql) {
+        return statistics.summaries().stream().filter(summary -> summary.sql().equals(sql)).findFirst().orElseThrow();
+    }
+
+}
@@ -0,0 +1,98 @@
+package template.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static template.service.ItemChange.Type.DELETE;
+import static template.service.ItemChange.Type.PUT;
+
+class ItemChangeFeedTest {
+
+    @Test
+    void shouldReturnChangesAfterSequence() throws InterruptedException {
+        //given feed with published changes
+        var feed = new ItemChangeFeed(10, new SimpleMeterRegistry());
+        feed.publish(PUT, 1L, "Item A");
+        feed.publish(PUT, 2L, "Item B");
+        feed.publish(DELETE, 1L, null);
+
+        //when changes after the first one are read
+        var changes = feed.await(1, Duration.ZERO);
+
+        //then following changes are returned in order
+        assertFalse(changes.resync());
+        assertEquals(List.of(new ItemChange(2, PUT, 2L, "Item B"), new ItemChange(3, DELETE, 1L, null)), changes.changes());
+    }
+
+    @Test
+    void shouldWaitForChanges() throws Exception {
+        //given feed without changes
+        var feed = new ItemChangeFeed(10, new SimpleMeterRegistry());
+
+        try (var executor = Executors.newSingleThreadExecutor()) {
+            //when reader waits for changes
+            var changes = executor.submit(() -> feed.await(0, Duration.ofSeconds(10)));
+
+            //and a change is published
+            Thread.sleep(100);
+            feed.publish(PUT, 1L, "Item A");
+
+            //then reader gets the change
+            assertEquals(List.of(new ItemChange(1, PUT, 1L, "Item A")), changes.get(5, TimeUnit.SECONDS).changes());
+        }
+    }
+
+    @Test
+    void shouldReturnNoChangesWhenTimeoutElapses() throws InterruptedException {
+        //given feed without changes
+        var feed = new ItemChangeFeed(10, new SimpleMeterRegistry());
+
+        //when reader waits for changes
+        var changes = feed.await(0, Duration.ofMillis(10));
+
+        //then no changes are returned
+        assertFalse(changes.resync());
+        assertTrue(changes.changes().isEmpty());
+    }
+
+    @Test
+    void shouldRequireResyncWhenChangesWereOverwritten() throws InterruptedException {
+        //given feed holding 3 changes
+        var registry = new SimpleMeterRegistry();
+        var feed = new ItemChangeFeed(3, registry);
+
+        //when more changes are published than it can hold
+        for (long id = 1; id <= 5; id++) {
+            feed.publish(PUT, id, "Item " + id);
+        }
+
+        //then reader which has not seen overwritten changes has to resync
+        assertTrue(feed.await(1, Duration.ZERO).resync());
+        assertEquals(1, registry.counter(ItemChangeFeed.RESYNC_METRIC).count());
+
+        //and reader which has seen them gets the rest
+        assertEquals(3, feed.await(2, Duration.ZERO).changes().size());
+    }
+
+    @Test
+    void shouldNotResumeFromEventIdOfAnotherRun() {
+        //given feed
+        var feed = new ItemChangeFeed(10, new SimpleMeterRegistry());
+
+        //when event IDs are parsed
+        //then only IDs of this run are resumed
+        assertEquals(OptionalLong.of(7), feed.sequenceOf(feed.eventId(7)));
+        assertEquals(OptionalLong.empty(), feed.sequenceOf("0-7"));
+        assertEquals(OptionalLong.empty(), feed.sequenceOf("7"));
+    }
+
+}
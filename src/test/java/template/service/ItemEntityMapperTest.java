@@ -0,0 +1,37 @@
+package template.service;
+
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import template.repository.ItemEntity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ItemEntityMapperTest {
+
+    private final ItemEntityMapper mapper = Mappers.getMapper(ItemEntityMapper.class);
+
+    @Test
+    void shouldMapEntityToItem() {
+        //given entity
+        var entity = ItemEntity.builder().id(1L).name("Item A").build();
+
+        //when entity is mapped
+        var result = mapper.toDomainObject(entity);
+
+        //then item with the same values is returned
+        assertEquals(Item.builder().id(1L).name("Item A").build(), result);
+    }
+
+    @Test
+    void shouldMapItemToEntity() {
+        //given item
+        var item = Item.builder().id(1L).name("Item A").build();
+
+        //when item is mapped
+        var result = mapper.toEntity(item);
+
+        //then entity with the same values is returned
+        assertEquals(ItemEntity.builder().id(1L).name("Item A").build(), result);
+    }
+
+}
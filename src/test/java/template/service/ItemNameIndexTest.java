@@ -0,0 +1,128 @@
+package template.service;
+
+import org.junit.jupiter.api.Test;
+import template.repository.InMemoryItemStore;
+import template.repository.ItemEntity;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ItemNameIndexTest {
+
+    @Test
+    void shouldRebuildIndexFromRepository() {
+        //given repository with items
+        var repository = new InMemoryItemStore();
+        repository.createAll(List.of(ItemEntity.builder().name("Item A").build(), ItemEntity.builder().name("Item B").build()));
+
+        //and index
+        var index = new ItemNameIndex(repository);
+
+        //when index is rebuilt
+        index.afterSingletonsInstantiated();
+
+        //then all items are indexed
+        assertEquals(2, index.size());
+        assertEquals(List.of(2L), index.findByPrefix("item b", null, 10));
+    }
+
+    @Test
+    void shouldFindItemsByPrefixIgnoringCase() {
+        //given index with items
+        var index = new ItemNameIndex(new InMemoryItemStore());
+        index.put(3L, "Apple pie");
+        index.put(1L, "APPLE");
+        index.put(2L, "Banana");
+
+        //when items are searched by prefix
+        var result = index.findByPrefix("apple", null, 10);
+
+        //then matching items are returned in ID order
+        assertEquals(List.of(1L, 3L), result);
+    }
+
+    @Test
+    void shouldFindItemsContainingText() {
+        //given index with items
+        var index = new ItemNameIndex(new InMemoryItemStore());
+        index.put(1L, "Green apple");
+        index.put(2L, "Apple pie");
+        index.put(3L, "Pineapple");
+        index.put(4L, "Plum");
+
+        //when items are searched by text
+        var result = index.findContaining("APPLE", null, 10);
+
+        //then items containing text are returned in ID order
+        assertEquals(List.of(1L, 2L, 3L), result);
+
+        //and items are also found by text shorter than trigram
+        assertEquals(List.of(4L), index.findContaining("um", null, 10));
+    }
+
+    @Test
+    void shouldNotFindItemsWithAllTrigramsInDifferentPlaces() {
+        //given index with item containing trigrams of the text, but not the text itself
+        var index = new ItemNameIndex(new InMemoryItemStore());
+        index.put(1L, "abcd bcde");
+
+        //when items are searched by text
+        var result = index.findContaining("abcde", null, 10);
+
+        //then item is not returned
+        assertEquals(List.of(), result);
+    }
+
+    @Test
+    void shouldUpdateIndexWhenItemIsRenamedOrRemoved() {
+        //given index with items
+        var index = new ItemNameIndex(new InMemoryItemStore());
+        index.put(1L, "Apple");
+        index.put(2L, "Banana");
+
+        //when items are renamed and removed
+        index.put(1L, "Cherry");
+        index.remove(2L);
+
+        //then old names are no longer found
+        assertEquals(List.of(), index.findByPrefix("apple", null, 10));
+        assertEquals(List.of(), index.findContaining("nana", null, 10));
+
+        //and new name is found
+        assertEquals(List.of(1L), index.findContaining("err", null, 10));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void shouldPageSearchResults() {
+        //given index with many matching items
+        var index = new ItemNameIndex(new InMemoryItemStore());
+        IntStream.rangeClosed(1, 25).forEach(i -> index.put(i, "Item " + i));
+
+        //when page following cursor is requested
+        var result = index.findContaining("item", 10L, 10);
+
+        //then items following cursor are returned
+        assertEquals(LongStream.rangeClosed(11, 20).boxed().toList(), result);
+    }
+
+    @Test
+    void shouldPageShortQueriesInIdOrder() {
+        //given index with items added out of ID order
+        var index = new ItemNameIndex(new InMemoryItemStore());
+        IntStream.of(5, 3, 9, 1, 7).forEach(i -> index.put(i, "Item " + i));
+        index.put(4, "Other");
+
+        //when pages of items containing text too short for a trigram are requested
+        var first = index.findContaining("it", null, 2);
+        var second = index.findContaining("it", first.getLast(), 2);
+
+        //then matching items are returned in ID order
+        assertEquals(List.of(1L, 3L), first);
+        assertEquals(List.of(5L, 7L), second);
+    }
+
+}
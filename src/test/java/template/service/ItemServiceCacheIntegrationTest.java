@@ -0,0 +1,82 @@
+package template.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.TestPropertySource;
+import template.AbstractIntegrationTest;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static template.service.ItemService.ITEMS_CACHE;
+
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:layered-cache-test")
+class ItemServiceCacheIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private ItemService service;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void clearCache() {
+        cacheManager.getCache(ITEMS_CACHE).clear();
+    }
+
+    @Test
+    void shouldCacheItem() {
+        //when item is requested
+        var item = service.get(1L);
+
+        //then item is cached
+        assertEquals(item.get(), cacheManager.getCache(ITEMS_CACHE).get(1L).get());
+
+        //and cached item is returned by subsequent requests
+        assertEquals(item, service.get(1L));
+    }
+
+    @Test
+    void shouldNotCacheMissingItem() {
+        //when missing item is requested
+        var item = service.get(100L);
+
+        //then item is not found
+        assertEquals(Optional.empty(), item);
+
+        //and nothing is cached, so the item can be found once created
+        assertNull(cacheManager.getCache(ITEMS_CACHE).get(100L));
+    }
+
+    @Test
+    void shouldEvictItemOnUpsert() {
+        //given cached item
+        var item = service.get(1L).get();
+        assertNotNull(cacheManager.getCache(ITEMS_CACHE).get(1L));
+
+        //when item is upserted
+        service.upsert(1L, item);
+
+        //then item is evicted from cache
+        assertNull(cacheManager.getCache(ITEMS_CACHE).get(1L));
+    }
+
+    @Test
+    void shouldEvictItemOnDelete() {
+        //given cached item
+        service.upsert(100L, Item.builder().id(100L).name("Item D").build());
+        service.get(100L);
+        assertNotNull(cacheManager.getCache(ITEMS_CACHE).get(100L));
+
+        //when item is deleted
+        service.delete(100L);
+
+        //then item is evicted from cache
+        assertNull(cacheManager.getCache(ITEMS_CACHE).get(100L));
+    }
+
+}
@@ -1,25 +1,41 @@
 package template.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.Query;
 import org.junit.jupiter.api.Test;
-import org.modelmapper.ModelMapper;
+import org.mapstruct.factory.Mappers;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import template.exception.ItemIdAlreadySetException;
+import template.repository.InMemoryItemStore;
 import template.repository.ItemEntity;
 import template.repository.ItemJpaRepository;
-import template.repository.ItemRepository;
+import template.repository.ItemStore;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.transaction.support.TransactionSynchronization.STATUS_COMMITTED;
+import static org.springframework.transaction.support.TransactionSynchronization.STATUS_ROLLED_BACK;
 import static template.util.TestItems.createTestItemEntities;
 import static template.util.TestItems.createTestItems;
 
@@ -31,11 +47,11 @@ class ItemServiceTest {
         var entity = ItemEntity.builder().id(1L).name("Item A").build();
 
         //and repository
-        var repository = mock(ItemRepository.class);
+        var repository = mock(ItemStore.class);
         when(repository.findById(entity.getId())).thenReturn(Optional.of(entity));
 
         //and service
-        var service = new ItemService(repository, new ModelMapper());
+        var service = new ItemService(repository, Mappers.getMapper(ItemEntityMapper.class), mock(ItemNameIndex.class), mock(ItemChangeFeed.class), new SimpleMeterRegistry());
 
         //when item is requested
         var result = service.get(entity.getId());
@@ -51,11 +67,11 @@ class ItemServiceTest {
     @Test
     void shouldNotFindItem() {
         //given repository
-        var repository = mock(ItemRepository.class);
+        var repository = mock(ItemStore.class);
         when(repository.findById(1L)).thenReturn(Optional.empty());
 
         //and service
-        var service = new ItemService(repository, new ModelMapper());
+        var service = new ItemService(repository, Mappers.getMapper(ItemEntityMapper.class), mock(ItemNameIndex.class), mock(ItemChangeFeed.class), new SimpleMeterRegistry());
 
         //when item is requested
         var result = service.get(1L);
@@ -70,11 +86,11 @@ class ItemServiceTest {
     @Test
     void shouldGetItems() {
         //given repository
-        var repository = mock(ItemRepository.class);
+        var repository = mock(ItemStore.class);
         when(repository.findAll()).thenReturn(createTestItemEntities());
 
         //and service
-        var service = new ItemService(repository, new ModelMapper());
+        var service = new ItemService(repository, Mappers.getMapper(ItemEntityMapper.class), mock(ItemNameIndex.class), mock(ItemChangeFeed.class), new SimpleMeterRegistry());
 
         //when items are requested
         var items = service.get();
@@ -86,16 +102,75 @@ class ItemServiceTest {
         verify(repository).findAll();
     }
 
+    @Test
+    void shouldGetItemsPage() {
+        //given repository
+        var repository = mock(ItemStore.class);
+        when(repository.findPage(1L, 2)).thenReturn(createTestItemEntities().subList(1, 3));
+
+        //and service
+        var service = new ItemService(repository, Mappers.getMapper(ItemEntityMapper.class), mock(ItemNameIndex.class), mock(ItemChangeFeed.class), new SimpleMeterRegistry());
+
+        //when page of items is requested
+        var items = service.get(1L, 2);
+
+        //then items from the page are returned
+        assertEquals(createTestItems().subList(1, 3), items);
+
+        //and repository was involved in retrieving the data
+        verify(repository).findPage(1L, 2);
+    }
+
+    @Test
+    void shouldIterateOverItems() {
+        //given repository
+        var repository = mock(ItemStore.class);
+        doAnswer(invocation -> {
+            Consumer<ItemEntity> action = invocation.getArgument(0);
+            createTestItemEntities().forEach(action);
+            return null;
+        }).when(repository).forEach(any());
+
+        //and service
+        var service = new ItemService(repository, Mappers.getMapper(ItemEntityMapper.class), mock(ItemNameIndex.class), mock(ItemChangeFeed.class), new SimpleMeterRegistry());
+
+        //when items are iterated
+        var items = new ArrayList<Item>();
+        service.forEach(items::add);
+
+        //then all items are visited
+        assertEquals(createTestItems(), items);
+
+        //and repository was involved in retrieving the data
+        verify(repository).forEach(any());
+    }
+
+    @Test
+    void shouldGetVersion() {
+        //given repository
+        var repository = mock(ItemStore.class);
+        when(repository.getVersion()).thenReturn("abc-1");
+
+        //and service
+        var service = new ItemService(repository, Mappers.getMapper(ItemEntityMapper.class), mock(ItemNameIndex.class), mock(ItemChangeFeed.class), new SimpleMeterRegistry());
+
+        //when version is requested
+        var version = service.getVersion();
+
+        //then repository version is returned
+        assertEquals("abc-1", version);
+    }
+
     @Test
     void shouldCreateItem() {
         //given item
         var item = Item.builder().name("Item A").build();
 
         //and repository
-        var repository = mock(ItemRepository.class);
+        var repository = mock(ItemStore.class);
 
         //and service
-        var service = new ItemService(repository, new ModelMapper());
+        var service = new ItemService(repository, Mappers.getMapper(ItemEntityMapper.class), mock(ItemNameIndex.class), mock(ItemChangeFeed.class), new SimpleMeterRegistry());
 
         //when item is created
         service.create(item);
@@ -111,10 +186,10 @@ class ItemServiceTest {
         var item = Item.builder().id(1L).name("Item A").build();
 
         //and repository
-        var repository = mock(ItemRepository.class);
+        var repository = mock(ItemStore.class);
 
         //and service
-        var service = new ItemService(repository, new ModelMapper());
+        var service = new ItemService(repository, Mappers.getMapper(ItemEntityMapper.class), mock(ItemNameIndex.class), mock(ItemChangeFeed.class), new SimpleMeterRegistry());
 
         //when item is created
         var exception = assertThrows(ItemIdAlreadySetException.class, () -> service.create(item));
@@ -133,10 +208,10 @@ class ItemServiceTest {
         var item = Item.builder().id(1L).name("Item A").build();
 
         //and repository
-        var repository = mock(ItemRepository.class);
+        var repository = mock(ItemStore.class);
 
         //and service
-        var service = new ItemService(repository, new ModelMapper());
+        var service = new ItemService(repository, Mappers.getMapper(ItemEntityMapper.class), mock(ItemNameIndex.class), mock(ItemChangeFeed.class), new SimpleMeterRegistry());
 
         //when item is put
         service.upsert(1L, item);
@@ -145,22 +220,347 @@ class ItemServiceTest {
         verify(repository).upsert(1L, service.toEntity(item));
     }
 
+    @Test
+    void shouldReplaceItemOnlyInExpectedVersion() {
+        //given item
+        var item = Item.builder().id(1L).name("Item A").build();
+
+        //and repository holding the item in version 2
+        var repository = mock(ItemStore.class);
+        when(repository.replace(eq(1L), any(), eq(2L))).thenReturn(true);
+
+        //and name index
+        var nameIndex = mock(ItemNameIndex.class);
+
+        //and service
+        var service = new ItemService(repository, Mappers.getMapper(ItemEntityMapper.class), nameIndex, mock(ItemChangeFeed.class), new SimpleMeterRegistry());
+
+        //when item is replaced based on outdated and current version
+        var replacedOutdated = service.replace(1L, item, 1L);
+        var replacedCurrent = service.replace(1L, item, 2L);
+
+        //then only the replacement based on current version succeeds
+        assertFalse(replacedOutdated);
+        assertTrue(replacedCurrent);
+
+        //and name index is updated once
+        verify(nameIndex, times(1)).put(1L, "Item A");
+    }
+
+    @Test
+    void shouldReplaceItemOnlyWhenPreconditionHoldsForCurrentItem() {
+        //given item
+        var item = Item.builder().id(1L).name("Item A1").build();
+
+        //and repository holding the item in version 2
+        var repository = mock(ItemStore.class);
+        var current = ItemEntity.builder().id(1L).name("Item A").version(2L).build();
+        when(repository.findById(1L)).thenReturn(Optional.of(current));
+        when(repository.replace(eq(1L), any(), eq(current))).thenReturn(true);
+
+        //and service
+        var service = new ItemService(repository, Mappers.getMapper(ItemEntityMapper.class), mock(ItemNameIndex.class), mock(ItemChangeFeed.class), new SimpleMeterRegistry());
+
+        //when item is replaced with precondition failing and holding for the current item
+        var replacedFailing = service.replaceIf(1L, item, current -> current.getName().equals("Item B"));
+        var replacedHolding = service.replaceIf(1L, item, current -> current.getName().equals("Item A"));
+
+        //then only the replacement with precondition holding succeeds
+        assertFalse(replacedFailing);
+        assertTrue(replacedHolding);
+
+        //and item was replaced once, only while it still is the item precondition was checked against
+        verify(repository, times(1)).replace(1L, service.toEntity(item), current);
+    }
+
+    @Test
+    void shouldCreateItems() {
+        //given items
+        var items = List.of(Item.builder().name("Item A").build(), Item.builder().name("Item B").build());
+
+        //and repository
+        var repository = mock(ItemStore.class);
+
+        //and service
+        var service = new ItemService(repository, Mappers.getMapper(ItemEntityMapper.class), mock(ItemNameIndex.class), mock(ItemChangeFeed.class), new SimpleMeterRegistry());
+
+        //when items are created
+        service.createAll(items);
+
+        //then items are saved in repository
+        verify(repository).createAll(items.stream().map(service::toEntity).toList());
+    }
+
+    @Test
+    void shouldNotCreateItemsWhenItemHasID() {
+        //given items
+        var items = List.of(Item.builder().name("Item A").build(), Item.builder().id(2L).name("Item B").build());
+
+        //and repository
+        var repository = mock(ItemStore.class);
+
+        //and service
+        var service = new ItemService(repository, Mappers.getMapper(ItemEntityMapper.class), mock(ItemNameIndex.class), mock(ItemChangeFeed.class), new SimpleMeterRegistry());
+
+        //when items are created
+        var exception = assertThrows(ItemIdAlreadySetException.class, () -> service.createAll(items));
+
+        //then exception is thrown
+        var expectedMessage = "Item ID must be null when creating a new item. Expected null so the service can assign a new ID, but received: 2.";
+        assertEquals(expectedMessage, exception.getMessage());
+
+        //and items have not been saved in repository
+        verify(repository, never()).createAll(any());
+    }
+
+    @Test
+    void shouldUpsertItems() {
+        //given items
+        var items = createTestItems();
+
+        //and repository
+        var repository = mock(ItemStore.class);
+
+        //and service
+        var service = new ItemService(repository, Mappers.getMapper(ItemEntityMapper.class), mock(ItemNameIndex.class), mock(ItemChangeFeed.class), new SimpleMeterRegistry());
+
+        //when items are put
+        service.upsertAll(items);
+
+        //then items have been saved in repository
+        verify(repository).upsertAll(createTestItemEntities());
+    }
+
     @Test
     void shouldDeleteItem() {
         //given entity
         var entity = ItemEntity.builder().id(1L).name("Item A").build();
 
         //and repository
-        var repository = mock(ItemRepository.class);
+        var repository = mock(ItemStore.class);
+        when(repository.deleteById(entity.getId())).thenReturn(true);
 
         //and service
-        var service = new ItemService(repository, new ModelMapper());
+        var service = new ItemService(repository, Mappers.getMapper(ItemEntityMapper.class), mock(ItemNameIndex.class), mock(ItemChangeFeed.class), new SimpleMeterRegistry());
 
         //when item is deleted
-        service.delete(entity.getId());
+        var deleted = service.delete(entity.getId());
 
         //then item is deleted from repository
         verify(repository).deleteById(entity.getId());
+
+        //and deletion is reported
+        assertTrue(deleted);
+    }
+
+    @Test
+    void shouldDeleteItems() {
+        //given IDs of items
+        var ids = List.of(1L, 2L, 100L);
+
+        //and repository holding two of them
+        var repository = new InMemoryItemStore();
+        repository.upsertAll(List.of(ItemEntity.builder().id(1L).name("Item A").build(), ItemEntity.builder().id(2L).name("Item B").build()));
+
+        //and change feed
+        var changeFeed = mock(ItemChangeFeed.class);
+
+        //and service
+        var service = new ItemService(repository, Mappers.getMapper(ItemEntityMapper.class), mock(ItemNameIndex.class), changeFeed, new SimpleMeterRegistry());
+
+        //when items are deleted
+        var count = service.deleteAll(ids);
+
+        //then number of deleted items is returned
+        assertEquals(2, count);
+
+        //and deletions are published only for items the repository deleted
+        verify(changeFeed).publish(ItemChange.Type.DELETE, 1L, null);
+        verify(changeFeed).publish(ItemChange.Type.DELETE, 2L, null);
+        verify(changeFeed, never()).publish(ItemChange.Type.DELETE, 100L, null);
+    }
+
+    @Test
+    void shouldSearchItemsByPrefix() {
+        //given name index
+        var nameIndex = mock(ItemNameIndex.class);
+        when(nameIndex.findByPrefix("item", null, 10)).thenReturn(List.of(1L, 2L));
+
+        //and repository with one item renamed after it was indexed
+        var repository = mock(ItemStore.class);
+        var itemA = ItemEntity.builder().id(1L).name("Item A").build();
+        var itemB = ItemEntity.builder().id(2L).name("Renamed B").build();
+        when(repository.findAllById(List.of(1L, 2L))).thenReturn(List.of(itemA, itemB));
+
+        //and service
+        var service = new ItemService(repository, Mappers.getMapper(ItemEntityMapper.class), nameIndex, mock(ItemChangeFeed.class), new SimpleMeterRegistry());
+
+        //when items are searched by prefix
+        var result = service.searchByPrefix("item", null, 10);
+
+        //then only item whose current name matches is returned
+        assertEquals(List.of(service.toDomainObject(itemA)), result);
+    }
+
+    @Test
+    void shouldFetchMoreCandidatesUntilSearchPageIsFull() {
+        //given name index
+        var nameIndex = mock(ItemNameIndex.class);
+        when(nameIndex.findContaining("item", null, 2)).thenReturn(List.of(1L, 2L));
+        when(nameIndex.findContaining("item", 2L, 1)).thenReturn(List.of(3L));
+
+        //and repository with one item renamed after it was indexed
+        var repository = mock(ItemStore.class);
+        var itemA = ItemEntity.builder().id(1L).name("Item A").build();
+        var itemB = ItemEntity.builder().id(2L).name("Renamed B").build();
+        var itemC = ItemEntity.builder().id(3L).name("Item C").build();
+        when(repository.findAllById(List.of(1L, 2L))).thenReturn(List.of(itemA, itemB));
+        when(repository.findAllById(List.of(3L))).thenReturn(List.of(itemC));
+
+        //and service
+        var service = new ItemService(repository, Mappers.getMapper(ItemEntityMapper.class), nameIndex, mock(ItemChangeFeed.class), new SimpleMeterRegistry());
+
+        //when page of items containing text is requested
+        var result = service.searchContaining("item", null, 2);
+
+        //then page is filled with the next matching item
+        assertEquals(List.of(service.toDomainObject(itemA), service.toDomainObject(itemC)), result);
+    }
+
+    @Test
+    void shouldIndexItemsWhenTheyAreWritten() {
+        //given name index
+        var nameIndex = mock(ItemNameIndex.class);
+
+        //and repository assigning IDs to created items
+        var repository = mock(ItemStore.class);
+        doAnswer(invocation -> {
+            invocation.<ItemEntity>getArgument(0).setId(7L);
+            return null;
+        }).when(repository).create(any());
+        when(repository.deleteById(5L)).thenReturn(true);
+
+        //and service
+        var service = new ItemService(repository, Mappers.getMapper(ItemEntityMapper.class), nameIndex, mock(ItemChangeFeed.class), new SimpleMeterRegistry());
+
+        //when items are created, upserted and deleted
+        service.create(Item.builder().name("Item A").build());
+        service.upsert(3L, Item.builder().id(3L).name("Item B").build());
+        service.delete(5L);
+
+        //then name index is updated
+        verify(nameIndex).put(7L, "Item A");
+        verify(nameIndex).put(3L, "Item B");
+        verify(nameIndex).remove(5L);
+    }
+
+    @Test
+    void shouldPublishChangesWhenItemsAreWritten() {
+        //given change feed
+        var changeFeed = mock(ItemChangeFeed.class);
+
+        //and repository
+        var repository = mock(ItemStore.class);
+        when(repository.deleteById(5L)).thenReturn(true);
+
+        //and service
+        var service = new ItemService(repository, Mappers.getMapper(ItemEntityMapper.class), mock(ItemNameIndex.class), changeFeed, new SimpleMeterRegistry());
+
+        //when items are upserted and deleted
+        service.upsert(3L, Item.builder().id(3L).name("Item B").build());
+        service.delete(5L);
+        service.delete(6L);
+
+        //then changes are published
+        verify(changeFeed).publish(ItemChange.Type.PUT, 3L, "Item B");
+        verify(changeFeed).publish(ItemChange.Type.DELETE, 5L, null);
+
+        //and nothing is published for item that was not found
+        verify(changeFeed, never()).publish(ItemChange.Type.DELETE, 6L, null);
+    }
+
+    @Test
+    void shouldPublishChangesInOrderOfWritesWhenTransactionsCommitInAnotherOrder() {
+        //given change feed
+        var changeFeed = mock(ItemChangeFeed.class);
+
+        //and name index
+        var nameIndex = mock(ItemNameIndex.class);
+
+        //and service with repository numbering the writes it applies in the transaction
+        var repository = spy(new InMemoryItemStore());
+        when(repository.joinsTransaction()).thenReturn(true);
+        var service = new ItemService(repository, Mappers.getMapper(ItemEntityMapper.class), nameIndex, changeFeed, new SimpleMeterRegistry());
+
+        //and item upserted in two transactions one after another
+        var first = upsertInTransaction(service, Item.builder().id(1L).name("Item A").build());
+        var second = upsertInTransaction(service, Item.builder().id(1L).name("Item B").build());
+
+        //when the second transaction completes before the first one
+        second.forEach(synchronization -> synchronization.afterCompletion(STATUS_COMMITTED));
+        verify(changeFeed, never()).publish(any(), anyLong(), any());
+        first.forEach(synchronization -> synchronization.afterCompletion(STATUS_COMMITTED));
+
+        //then changes are published and indexed in the order of writes
+        var inOrder = inOrder(changeFeed, nameIndex);
+        inOrder.verify(nameIndex).put(1L, "Item A");
+        inOrder.verify(changeFeed).publish(ItemChange.Type.PUT, 1L, "Item A");
+        inOrder.verify(nameIndex).put(1L, "Item B");
+        inOrder.verify(changeFeed).publish(ItemChange.Type.PUT, 1L, "Item B");
+    }
+
+    @Test
+    void shouldNotHoldBackChangesAfterFailedWrite() {
+        //given repository failing after the first write of an item is applied
+        var repository = spy(new InMemoryItemStore());
+        doAnswer(invocation -> {
+            invocation.callRealMethod();
+            throw new IllegalStateException("Write failed");
+        }).doCallRealMethod().when(repository).upsert(eq(7L), any());
+
+        //and change feed
+        var changeFeed = mock(ItemChangeFeed.class);
+
+        //and service
+        var service = new ItemService(repository, Mappers.getMapper(ItemEntityMapper.class), mock(ItemNameIndex.class), changeFeed, new SimpleMeterRegistry());
+
+        //when item is written after a failed write of it
+        assertThrows(IllegalStateException.class, () -> service.upsert(7L, Item.builder().id(7L).name("Item A").build()));
+        service.upsert(7L, Item.builder().id(7L).name("Item B").build());
+
+        //then change of the item is published without waiting for the failed one
+        verify(changeFeed).publish(ItemChange.Type.PUT, 7L, "Item B");
+        verify(changeFeed, never()).publish(ItemChange.Type.PUT, 7L, "Item A");
+    }
+
+    @Test
+    void shouldPublishChangesOfStoreWritingOutsideOfTransactionEvenWhenItIsRolledBack() {
+        //given change feed
+        var changeFeed = mock(ItemChangeFeed.class);
+
+        //and name index
+        var nameIndex = mock(ItemNameIndex.class);
+
+        //and service with repository keeping writes whatever happens to the transaction
+        var service = new ItemService(new InMemoryItemStore(), Mappers.getMapper(ItemEntityMapper.class), nameIndex, changeFeed, new SimpleMeterRegistry());
+
+        //when item is upserted in transaction that is rolled back
+        var synchronizations = upsertInTransaction(service, Item.builder().id(1L).name("Item A").build());
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(STATUS_ROLLED_BACK));
+
+        //then item that was kept is indexed and its change is published
+        verify(nameIndex).put(1L, "Item A");
+        verify(changeFeed).publish(ItemChange.Type.PUT, 1L, "Item A");
+    }
+
+    private List<TransactionSynchronization> upsertInTransaction(ItemService service, Item item) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.upsert(item.getId(), item);
+            return TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
     }
 
 }
@@ -0,0 +1,123 @@
+package template.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import template.exception.ItemImportException;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static template.service.ItemTransfer.CHUNK_SIZE;
+import static template.service.ItemTransfer.IMPORTED_METRIC;
+
+class ItemTransferTest {
+
+    @Test
+    void shouldImportItemsInChunks() {
+        //given service
+        var service = mock(ItemService.class);
+
+        //and transfer
+        var registry = new SimpleMeterRegistry();
+        var transfer = new ItemTransfer(service, registry);
+
+        //when more items than fit in two chunks are imported
+        var items = IntStream.range(0, CHUNK_SIZE * 2 + 1).mapToObj(i -> Item.builder().name("Item " + i).build()).iterator();
+        var count = transfer.importItems(items);
+
+        //then items are created in chunks
+        verify(service, times(2)).createAll(argThat(chunk -> chunk.size() == CHUNK_SIZE));
+        verify(service).createAll(argThat(chunk -> chunk.size() == 1));
+
+        //and all items are counted
+        assertEquals(CHUNK_SIZE * 2 + 1, count);
+        assertEquals(CHUNK_SIZE * 2 + 1, registry.get(IMPORTED_METRIC).counter().count());
+    }
+
+    @Test
+    void shouldReportCommittedItemsWhenImportFails() {
+        //given service
+        var service = mock(ItemService.class);
+
+        //and transfer
+        var transfer = new ItemTransfer(service, new SimpleMeterRegistry());
+
+        //and items failing after the first chunk
+        Iterator<Item> items = Stream.concat(
+                        IntStream.range(0, CHUNK_SIZE).mapToObj(i -> Item.builder().name("Item " + i).build()),
+                        Stream.<Item>generate(() -> {
+                            throw new IllegalArgumentException("Invalid item");
+                        }))
+                .iterator();
+
+        //when items are imported
+        var exception = assertThrows(ItemImportException.class, () -> transfer.importItems(items));
+
+        //then items of the first chunk are reported as imported
+        assertEquals(CHUNK_SIZE, exception.getImportedCount());
+        verify(service).createAll(any());
+    }
+
+    @Test
+    void shouldWriteItemsPrecedingInvalidOneInInputOrder() {
+        //given service recording written items
+        var service = mock(ItemService.class);
+        var written = new ArrayList<Item>();
+        doAnswer(invocation -> written.addAll(invocation.getArgument(0))).when(service).createAll(any());
+        doAnswer(invocation -> written.addAll(invocation.getArgument(0))).when(service).upsertAll(any());
+
+        //and transfer
+        var transfer = new ItemTransfer(service, new SimpleMeterRegistry());
+
+        //and items to create and upsert alternating in runs, with an invalid one after the first 1500
+        var valid = IntStream.range(0, 1500)
+                .mapToObj(i -> Item.builder().id(i % 7 < 3 ? 100L + i : null).name("Item " + i).build())
+                .toList();
+        Iterator<Item> items = Stream.concat(
+                        valid.stream(),
+                        Stream.<Item>generate(() -> {
+                            throw new IllegalArgumentException("Invalid item");
+                        }))
+                .iterator();
+
+        //when items are imported
+        var exception = assertThrows(ItemImportException.class, () -> transfer.importItems(items));
+
+        //then exactly the items preceding the invalid one are written, in the order they were read
+        assertEquals(valid, written);
+        assertEquals(1500, exception.getImportedCount());
+    }
+
+    @Test
+    void shouldExportAllItems() {
+        //given service
+        var service = mock(ItemService.class);
+        doAnswer(invocation -> {
+            invocation.<ItemService.ValueConsumer>getArgument(0).accept(1L, "Item A");
+            return null;
+        }).when(service).forEachValue(any());
+
+        //and transfer
+        var transfer = new ItemTransfer(service, new SimpleMeterRegistry());
+
+        //when items are exported
+        var exported = new ArrayList<String>();
+        var count = transfer.exportItems((id, name) -> exported.add(id + ":" + name));
+
+        //then all items are passed on and counted
+        assertEquals(List.of("1:Item A"), exported);
+        assertEquals(1, count);
+    }
+
+}
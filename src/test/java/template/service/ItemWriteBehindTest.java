@@ -0,0 +1,163 @@
+package template.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import template.repository.ItemEntity;
+import template.repository.ShardedItemStore;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static template.service.ItemService.ITEMS_CACHE;
+import static template.service.ItemWriteBehind.BATCH_SIZE_METRIC;
+import static template.service.ItemWriteBehind.FAILED_METRIC;
+import static template.service.ItemWriteBehind.REJECTED_METRIC;
+
+class ItemWriteBehindTest {
+
+    @Test
+    void shouldRejectWriteWhenQueueIsFull() {
+        //given meter registry
+        var registry = new SimpleMeterRegistry();
+
+        //and write-behind with queue for single write
+        var writeBehind = new ItemWriteBehind(mock(ItemService.class), mock(PlatformTransactionManager.class),
+                new ConcurrentMapCacheManager(ITEMS_CACHE), registry, true, 1, 10);
+
+        //when two writes are submitted
+        var first = writeBehind.submitCreate(Item.builder().name("Item A").build());
+        var second = writeBehind.submitCreate(Item.builder().name("Item B").build());
+
+        //then first write is accepted
+        assertTrue(first.isPresent());
+
+        //and second write is rejected
+        assertTrue(second.isEmpty());
+        assertEquals(1, registry.get(REJECTED_METRIC).counter().count());
+    }
+
+    @Test
+    void shouldCommitQueuedWritesInSingleTransaction() throws InterruptedException {
+        //given service of store joining the transaction
+        var service = mock(ItemService.class);
+        when(service.joinsTransaction()).thenReturn(true);
+
+        //and transaction manager
+        var transactionManager = mock(PlatformTransactionManager.class);
+
+        //and cache with item
+        var cacheManager = new ConcurrentMapCacheManager(ITEMS_CACHE);
+        cacheManager.getCache(ITEMS_CACHE).put(2L, Item.builder().id(2L).name("Item B").build());
+
+        //and write-behind with queued writes
+        var registry = new SimpleMeterRegistry();
+        var writeBehind = new ItemWriteBehind(service, transactionManager, cacheManager, registry, true, 10, 10);
+        var created = Item.builder().name("Item A").build();
+        var upserted = Item.builder().id(2L).name("Item B2").build();
+        writeBehind.submitCreate(created);
+        writeBehind.submitUpsert(2L, upserted);
+
+        //when writer is started and stopped
+        writeBehind.start();
+        writeBehind.stop();
+
+        //then writes are passed to service
+        verify(service).create(created);
+        verify(service).upsert(2L, upserted);
+
+        //and committed in single transaction
+        verify(transactionManager, times(1)).getTransaction(any());
+        assertEquals(1, registry.get(BATCH_SIZE_METRIC).summary().count());
+        assertEquals(2, registry.get(BATCH_SIZE_METRIC).summary().totalAmount());
+
+        //and upserted item is evicted from cache
+        assertNull(cacheManager.getCache(ITEMS_CACHE).get(2L));
+    }
+
+    @Test
+    void shouldCommitWritesOneByOneWhenGroupCommitFails() throws InterruptedException {
+        //given service of store joining the transaction, failing to create item
+        var service = mock(ItemService.class);
+        when(service.joinsTransaction()).thenReturn(true);
+        var failing = Item.builder().name("Item A").build();
+        doThrow(new IllegalStateException()).when(service).create(failing);
+
+        //and write-behind with queued writes
+        var registry = new SimpleMeterRegistry();
+        var writeBehind = new ItemWriteBehind(service, mock(PlatformTransactionManager.class),
+                new ConcurrentMapCacheManager(ITEMS_CACHE), registry, true, 10, 10);
+        var upserted = Item.builder().id(2L).name("Item B").build();
+        writeBehind.submitUpsert(2L, upserted);
+        writeBehind.submitCreate(failing);
+
+        //when writer is started and stopped
+        writeBehind.start();
+        writeBehind.stop();
+
+        //then other write is committed on its own
+        verify(service, times(2)).upsert(2L, upserted);
+        assertEquals(1, registry.get(BATCH_SIZE_METRIC).summary().count());
+
+        //and failed write is counted
+        assertEquals(1, registry.get(FAILED_METRIC).counter().count());
+    }
+
+    @Test
+    void shouldApplyWritesOnceWhenGroupFailsOnStoreWritingOutsideOfTransaction() throws InterruptedException {
+        //given sharded store, which commits every write in its shard right away
+        var name = UUID.randomUUID();
+        var dataSources = IntStream.range(0, 2).mapToObj(i -> createDataSource("jdbc:h2:mem:write-behind-" + name + "-" + i + ";DB_CLOSE_DELAY=-1")).toList();
+        var store = new ShardedItemStore(dataSources);
+
+        //and service
+        var service = new ItemService(store, Mappers.getMapper(ItemEntityMapper.class), mock(ItemNameIndex.class), mock(ItemChangeFeed.class), new SimpleMeterRegistry());
+
+        //and write-behind with group whose third write fails, as its name is longer than the column
+        var registry = new SimpleMeterRegistry();
+        var writeBehind = new ItemWriteBehind(service, new DataSourceTransactionManager(dataSources.getFirst()),
+                new ConcurrentMapCacheManager(ITEMS_CACHE), registry, true, 10, 10);
+        writeBehind.submitCreate(Item.builder().name("Item A").build());
+        writeBehind.submitCreate(Item.builder().name("Item B").build());
+        writeBehind.submitCreate(Item.builder().name("X".repeat(256)).build());
+        writeBehind.submitCreate(Item.builder().name("Item D").build());
+
+        try {
+            //when writer is started and stopped
+            writeBehind.start();
+            writeBehind.stop();
+
+            //then every other write is applied exactly once
+            assertEquals(List.of("Item A", "Item B", "Item D"), store.findAll().stream().map(ItemEntity::getName).sorted().toList());
+
+            //and failed write is counted
+            assertEquals(1, registry.get(FAILED_METRIC).counter().count());
+        } finally {
+            store.close();
+            dataSources.forEach(dataSource -> new JdbcTemplate(dataSource).execute("SHUTDOWN"));
+        }
+    }
+
+    private static DataSource createDataSource(String url) {
+        var dataSource = new JdbcDataSource();
+        dataSource.setURL(url);
+        return dataSource;
+    }
+
+}
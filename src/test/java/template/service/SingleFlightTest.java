@@ -0,0 +1,98 @@
+package template.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightTest {
+
+    @Test
+    void shouldShareLoadBetweenConcurrentCallers() throws Exception {
+        //given single flight
+        var registry = new SimpleMeterRegistry();
+        var singleFlight = new SingleFlight<Long, Object>(registry.counter("coalesced"));
+
+        //and load blocked until all callers are waiting
+        var loads = new AtomicInteger();
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var result = new Object();
+
+        //when the same key is loaded by concurrent callers
+        var results = new ArrayList<Future<Object>>();
+        try (var executor = Executors.newFixedThreadPool(8)) {
+            results.add(executor.submit(() -> singleFlight.load(1L, () -> {
+                loads.incrementAndGet();
+                started.countDown();
+                await(release);
+                return result;
+            })));
+            await(started);
+            for (int i = 0; i < 7; i++) {
+                results.add(executor.submit(() -> singleFlight.load(1L, () -> {
+                    loads.incrementAndGet();
+                    return new Object();
+                })));
+            }
+            while (registry.counter("coalesced").count() < 7) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+        }
+
+        //then value is loaded once
+        assertEquals(1, loads.get());
+
+        //and all callers receive the same value
+        for (var future : results) {
+            assertSame(result, future.get());
+        }
+    }
+
+    @Test
+    void shouldLoadAgainOnceLoadIsDone() {
+        //given single flight
+        var singleFlight = new SingleFlight<Long, Integer>(new SimpleMeterRegistry().counter("coalesced"));
+
+        //when the same key is loaded one after another
+        var first = singleFlight.load(1L, () -> 1);
+        var second = singleFlight.load(1L, () -> 2);
+
+        //then each load sees its own value
+        assertEquals(1, first);
+        assertEquals(2, second);
+    }
+
+    @Test
+    void shouldRethrowExceptionOfLoad() {
+        //given single flight
+        var singleFlight = new SingleFlight<Long, Integer>(new SimpleMeterRegistry().counter("coalesced"));
+
+        //when load fails
+        //then its exception is thrown
+        assertThrows(IllegalStateException.class, () -> singleFlight.load(1L, () -> {
+            throw new IllegalStateException("Load failed");
+        }));
+
+        //and next load is run again
+        assertEquals(1, singleFlight.load(1L, () -> 1));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -1,7 +1,7 @@
-CREATE TABLE ITEM_SEQ_LOCK (id INT PRIMARY KEY);
-INSERT INTO ITEM_SEQ_LOCK(id) VALUES (1);
-INSERT INTO ITEM (id, name) VALUES
-    (1, 'Item A'),
-    (2, 'Item B'),
-    (3, 'Item C');
+CREATE SEQUENCE ITEM_SEQ START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE ITEM_CHANGE_SEQ;
+INSERT INTO ITEM (id, name, version) VALUES
+    (1, 'Item A', 0),
+    (2, 'Item B', 0),
+    (3, 'Item C', 0);
 ALTER SEQUENCE ITEM_SEQ RESTART WITH (SELECT MAX(id) + 1 FROM item);
\ No newline at end of file
@@ -0,0 +1,6 @@
+CREATE TABLE IF NOT EXISTS ITEM (id BIGINT NOT NULL PRIMARY KEY, name VARCHAR(255), version BIGINT);
+CREATE SEQUENCE IF NOT EXISTS ITEM_CHANGE_SEQ;
+MERGE INTO ITEM (id, name, version) KEY (id) VALUES
+    (1, 'Replica item A', 0),
+    (2, 'Replica item B', 0),
+    (3, 'Replica item C', 0);